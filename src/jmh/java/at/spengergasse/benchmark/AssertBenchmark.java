@@ -0,0 +1,65 @@
+package at.spengergasse.benchmark;
+
+import at.spengergasse.foundation.Assert;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Passing checks of {@link Assert}. Run with the GC profiler (BenchmarkRunner
+ * does that): every check except the capturing lambda should report
+ * gc.alloc.rate.norm of about 0 B/op.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@State(Scope.Thread)
+public class AssertBenchmark {
+
+    // non-final fields, so the JIT cannot fold the checks away
+    String name = "International Space Station";
+    long id = 4711L;
+    int count = 42;
+    boolean docked = false;
+
+    @Benchmark
+    public String isNotNull() {
+        return Assert.isNotNull(name, "name");
+    }
+
+    @Benchmark
+    public String hasMaxLength() {
+        return Assert.hasMaxLength(name, 255, "name");
+    }
+
+    @Benchmark
+    public int isNotNegative() {
+        return Assert.isNotNegative(count, "count");
+    }
+
+    @Benchmark
+    public boolean isTrueTemplate() {
+        Assert.isTrue(!docked, "spaceship id %d already docked at this spacebase %s", id, name);
+        return docked;
+    }
+
+    // for comparison: the lambda captures id and name and is allocated per call
+    // unless escape analysis happens to remove it
+    @Benchmark
+    public boolean isTrueCapturingSupplier() {
+        long capturedId = id;
+        String capturedName = name;
+        Assert.isTrue(!docked, () -> "spaceship id " + capturedId + " already docked at this spacebase " + capturedName);
+        return docked;
+    }
+}
@@ -0,0 +1,30 @@
+package at.spengergasse.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler attached, so every result comes
+ * with its allocation rate (gc.alloc.rate.norm = bytes per operation).
+ *
+ * <pre>
+ * mvn -P benchmark package
+ * java --enable-preview -jar target/benchmarks.jar [JMH options] [benchmark regex]
+ * java --enable-preview -jar target/benchmarks.jar SpaceBaseBenchmark -p fleetSize=100,10000
+ * </pre>
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        Options options = new OptionsBuilder()
+            .parent(new CommandLineOptions(args))
+            .addProfiler(GCProfiler.class)
+            .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,90 @@
+package at.spengergasse.benchmark;
+
+import at.spengergasse.domain.SpaceBase;
+import at.spengergasse.domain.SpaceShip;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Multi-threaded variants as they show up in production: several threads
+ * building ships at their own bases (which share the id allocator) and moving
+ * ships of a shared fleet.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--enable-preview", "-Xms8g", "-Xmx8g"})
+@Threads(4)
+public class ContendedBenchmark {
+
+    @State(Scope.Thread)
+    public static class Shipyard {
+
+        SpaceBase base;
+
+        // each thread starts with its share of the fleet
+        @Setup(Level.Iteration)
+        public void setUp(SharedFleet fleet) {
+            base = Fleets.baseWithShips("Shipyard", 0, 0, fleet.fleetSize / 4);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class SharedFleet {
+
+        @Param({"100", "1000", "10000", "100000", "1000000", "10000000"})
+        int fleetSize;
+
+        SpaceShip[] ships;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            ships = Fleets.ships(fleetSize);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Benchmark
+    public Long buildShip(Shipyard shipyard) {
+        return shipyard.base.buildShip();
+    }
+
+    /**
+     * Threads walk the shared fleet with different strides, so they mostly
+     * touch different ships but share cache lines and the fleet array.
+     */
+    @Benchmark
+    public SpaceShip moveTo(SharedFleet fleet, Cursor cursor) {
+        SpaceShip[] ships = fleet.ships;
+        int index = cursor.next;
+        cursor.next = (index + 1) % ships.length;
+        SpaceShip spaceship = ships[(int) ((index * 0x9E3779B1L + Thread.currentThread().threadId()) % ships.length)];
+        try {
+            if (spaceship.getFuel() < 100.0) {
+                spaceship.setDockingBase(spaceship.getHomeBase());
+            }
+            spaceship.moveTo(spaceship.getPosX() == 0 ? 3 : 0, spaceship.getPosY() == 0 ? 4 : 0);
+        } catch (RuntimeException e) {
+            // racing threads can drain the same tank, which is part of the picture
+        }
+        return spaceship;
+    }
+}
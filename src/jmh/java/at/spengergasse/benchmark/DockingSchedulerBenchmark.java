@@ -0,0 +1,64 @@
+package at.spengergasse.benchmark;
+
+import at.spengergasse.domain.DockingScheduler;
+import at.spengergasse.domain.FleetStore;
+import at.spengergasse.domain.SpaceBase;
+import at.spengergasse.domain.SpaceShip;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One ship arriving at and one leaving a full {@link DockingScheduler} with
+ * the given number of ships already waiting, so every tick admits exactly
+ * one ship from the queue.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--enable-preview", "-Xms8g", "-Xmx8g"})
+@State(Scope.Benchmark)
+public class DockingSchedulerBenchmark {
+
+    @Param({"1000", "1000000"})
+    int waiting;
+
+    Random random;
+    FleetStore store;
+    SpaceBase home;
+    SpaceBase away;
+    DockingScheduler scheduler;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        random = new Random(42);
+        store = FleetStore.onHeap();
+        home = new SpaceBase("Home", 0, 0);
+        away = new SpaceBase("Away", 0, 0);
+        scheduler = new DockingScheduler(away, 1, 1, 100.0);
+        for (int i = 0; i < waiting; i++) {
+            scheduler.arrive(new SpaceShip(store, home, 0, 0, random.nextDouble(2000.0)));
+        }
+        scheduler.tick();
+    }
+
+    @Benchmark
+    public int arriveAndAdmit() {
+        scheduler.arrive(new SpaceShip(store, home, 0, 0, random.nextDouble(2000.0)));
+        away.arrangeShips().forEach(spaceship -> away.moveShipTo(spaceship.getId(), home));
+        return scheduler.tick();
+    }
+}
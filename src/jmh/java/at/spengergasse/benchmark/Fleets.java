@@ -0,0 +1,35 @@
+package at.spengergasse.benchmark;
+
+import at.spengergasse.domain.SpaceBase;
+import at.spengergasse.domain.SpaceShip;
+
+/**
+ * Builds the fleets the benchmarks run against.
+ */
+final class Fleets {
+
+    static final double FUEL = 2000.0;
+
+    private Fleets() {
+    }
+
+    static SpaceBase baseWithShips(String name, int posX, int posY, int fleetSize) {
+        SpaceBase home = new SpaceBase(name + " Home", posX, posY);
+        SpaceBase base = new SpaceBase(name, posX, posY);
+        for (int i = 0; i < fleetSize; i++) {
+            // fuel varies so that sorting by fuel has something to do
+            SpaceShip spaceship = new SpaceShip(home, posX, posY, (int) ((i * 7919L) % 2000));
+            base.docking(spaceship);
+        }
+        return base;
+    }
+
+    static SpaceShip[] ships(int fleetSize) {
+        SpaceBase home = new SpaceBase("Home", 0, 0);
+        SpaceShip[] ships = new SpaceShip[fleetSize];
+        for (int i = 0; i < fleetSize; i++) {
+            ships[i] = new SpaceShip(home, 0, 0, FUEL);
+        }
+        return ships;
+    }
+}
@@ -0,0 +1,98 @@
+package at.spengergasse.benchmark;
+
+import at.spengergasse.domain.Journal;
+import at.spengergasse.domain.SpaceBase;
+import at.spengergasse.domain.SpaceShip;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SpaceBase#moveShipTo} with and without a {@link Journal}, each thread
+ * shuttling ships between its own pair of bases.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--enable-preview", "-Xms8g", "-Xmx8g"})
+@Threads(4)
+public class JournalBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Journaled {
+
+        @Param({"NONE", "BACKGROUND", "GROUP_COMMIT"})
+        String durability;
+
+        Path file;
+        Journal journal;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            if (!durability.equals("NONE")) {
+                file = Files.createTempFile("spacebase", ".journal");
+                journal = Journal.open(file, new ArrayList<>(), Journal.Durability.valueOf(durability));
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            if (journal != null) {
+                journal.close();
+                Files.delete(file);
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Shuttle {
+
+        SpaceBase from;
+        SpaceBase to;
+        List<Long> ids;
+        int next;
+
+        @Setup(Level.Iteration)
+        public void setUp(Journaled journaled) {
+            // both bases are the home base, so every arrival fills the tank again
+            from = new SpaceBase("Shuttle", 0, 0);
+            to = new SpaceBase("Shuttle", 0, 0);
+            ids = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                ids.add(from.buildShip());
+            }
+        }
+    }
+
+    @Benchmark
+    public SpaceShip moveShipTo(Journaled journaled, Shuttle shuttle) {
+        SpaceShip moved = shuttle.from.moveShipTo(shuttle.ids.get(shuttle.next), shuttle.to);
+        if (++shuttle.next == shuttle.ids.size()) {
+            // all ships arrived, send them back
+            shuttle.next = 0;
+            SpaceBase from = shuttle.from;
+            shuttle.from = shuttle.to;
+            shuttle.to = from;
+        }
+        return moved;
+    }
+}
@@ -0,0 +1,174 @@
+package at.spengergasse.benchmark;
+
+import at.spengergasse.domain.SpaceBase;
+import at.spengergasse.metrics.LatencyHistogram;
+import at.spengergasse.server.CommandServer;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives a {@link CommandServer} at a fixed request rate over several
+ * pipelined connections and reports the rate reached and the mean latency.
+ *
+ * <pre>
+ * java --enable-preview -cp target/benchmarks.jar at.spengergasse.benchmark.LoadGenerator \
+ *     [requests per second] [seconds] [connections] [port]
+ * </pre>
+ *
+ * Without a port an in-process server with 16 bases is started. Every
+ * connection builds its own ships first and then keeps moving them between
+ * the bases, refuels them and now and then builds a ship or arranges a base.
+ * The bases share one position, so moves cost no fuel and always succeed.
+ */
+public class LoadGenerator {
+
+    static final int BASES = 16;
+    static final int SHIPS_PER_CONNECTION = 64;
+    // requests on their way per connection
+    static final int WINDOW = 1024;
+
+    private final LongAdder errors = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    public static void main(String[] args) throws Exception {
+        int rate = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int connections = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+
+        CommandServer server = null;
+        int port;
+        if (args.length > 3) {
+            port = Integer.parseInt(args[3]);
+        } else {
+            List<SpaceBase> bases = new ArrayList<>();
+            for (int i = 0; i < BASES; i++) {
+                bases.add(new SpaceBase("Base " + i, 100, 100));
+            }
+            server = CommandServer.start(0, bases);
+            port = server.getPort();
+        }
+
+        try {
+            LoadGenerator generator = new LoadGenerator();
+            long start = System.nanoTime();
+            generator.run(port, rate, seconds, connections);
+            double elapsed = (System.nanoTime() - start) / 1e9;
+
+            long requests = generator.latency.count();
+            System.out.printf("%d requests in %.2f s: %.0f requests/s, %d errors, mean latency %.1f us%n",
+                requests, elapsed, requests / elapsed, generator.errors.sum(),
+                requests > 0 ? generator.latency.sumNanos() / 1e3 / requests : 0.0);
+        } finally {
+            if (server != null) {
+                server.close();
+            }
+        }
+    }
+
+    void run(int port, int rate, int seconds, int connections) throws InterruptedException {
+        long perConnection = (long) rate * seconds / connections;
+        double perNano = rate / (double) connections / 1e9;
+        List<Thread> threads = new ArrayList<>();
+        for (int c = 0; c < connections; c++) {
+            int seed = c;
+            threads.add(Thread.ofVirtual().start(() -> drive(port, seed, perConnection, perNano)));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    private void drive(int port, int seed, long requests, double perNano) {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            socket.setTcpNoDelay(true);
+            BufferedReader in = new BufferedReader(
+                new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII), 64 * 1024);
+            Writer out = new BufferedWriter(
+                new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII), 64 * 1024);
+
+            SplittableRandom random = new SplittableRandom(seed);
+            long[] ships = new long[SHIPS_PER_CONNECTION];
+            int[] at = new int[SHIPS_PER_CONNECTION];
+            for (int i = 0; i < ships.length; i++) {
+                at[i] = random.nextInt(BASES);
+                out.write("buildShip " + at[i] + "\n");
+                out.flush();
+                ships[i] = Long.parseLong(in.readLine().substring(3));
+            }
+
+            AtomicLong received = new AtomicLong();
+            AtomicLongArray sentAt = new AtomicLongArray(WINDOW);
+            Thread reader = Thread.ofVirtual().start(() -> receive(in, requests, received, sentAt));
+
+            long start = System.nanoTime();
+            long sent = 0;
+            while (sent < requests) {
+                long due = Math.min(requests, (long) ((System.nanoTime() - start) * perNano) + 1);
+                if (sent >= due || sent - received.get() >= WINDOW) {
+                    LockSupport.parkNanos(50_000);
+                    continue;
+                }
+                while (sent < due && sent - received.get() < WINDOW) {
+                    int ship = random.nextInt(ships.length);
+                    int roll = random.nextInt(100);
+                    if (roll < 60) {
+                        int to = random.nextInt(BASES);
+                        if (to == at[ship]) {
+                            to = (to + 1) % BASES;
+                        }
+                        out.write("moveShipTo " + at[ship] + " " + ships[ship] + " " + to + "\n");
+                        at[ship] = to;
+                    } else if (roll < 94) {
+                        out.write("refuel " + at[ship] + " " + ships[ship] + " 0\n");
+                    } else if (roll < 99) {
+                        out.write("buildShip " + random.nextInt(BASES) + "\n");
+                    } else {
+                        out.write("arrangeShips " + random.nextInt(BASES) + "\n");
+                    }
+                    sentAt.set((int) (sent % WINDOW), System.nanoTime());
+                    sent++;
+                }
+                out.flush();
+            }
+            reader.join();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // the answers come in the order of the requests
+    private void receive(BufferedReader in, long requests, AtomicLong received, AtomicLongArray sentAt) {
+        try {
+            for (long i = 0; i < requests; i++) {
+                String line = in.readLine();
+                if (line == null)
+                    return;
+                latency.record(System.nanoTime() - sentAt.get((int) (i % WINDOW)));
+                if (line.startsWith("ERR")) {
+                    errors.increment();
+                }
+                received.set(i + 1);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
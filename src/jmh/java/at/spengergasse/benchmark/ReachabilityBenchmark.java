@@ -0,0 +1,91 @@
+package at.spengergasse.benchmark;
+
+import at.spengergasse.domain.FleetStore;
+import at.spengergasse.domain.SpaceBase;
+import at.spengergasse.domain.SpaceShip;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * "Which ships can reach this point": the bulk queries of {@link FleetStore}
+ * against a scalar loop over the spaceships, as reports did it before.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--enable-preview", "-Xms8g", "-Xmx8g"})
+@State(Scope.Thread)
+public class ReachabilityBenchmark {
+
+    private static final int[] TARGETS_X = { 500, 0, 1_000, 250 };
+    private static final int[] TARGETS_Y = { 500, 0, 1_000, 750 };
+
+    @Param({"100000", "1000000", "10000000"})
+    int fleetSize;
+
+    @Param({"heap", "offHeap"})
+    String storage;
+
+    FleetStore store;
+    SpaceShip[] ships;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        store = storage.equals("heap") ? FleetStore.onHeap() : FleetStore.offHeap();
+        SpaceBase home = new SpaceBase("Home", 0, 0);
+        Random random = new Random(42);
+        ships = new SpaceShip[fleetSize];
+        for (int i = 0; i < fleetSize; i++) {
+            ships[i] = new SpaceShip(store, home, random.nextInt(1_000), random.nextInt(1_000), random.nextInt(2_001));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        store.close();
+    }
+
+    @Benchmark
+    public long[] scalar() {
+        long[] bitmap = new long[(ships.length + 63) >>> 6];
+        for (int i = 0; i < ships.length; i++) {
+            SpaceShip spaceship = ships[i];
+            double distance = Math.sqrt(Math.pow(TARGETS_X[0] - spaceship.getPosX(), 2.0)
+                + Math.pow(TARGETS_Y[0] - spaceship.getPosY(), 2.0));
+            if (spaceship.getFuel() - distance * 3.58 >= 0.0) {
+                bitmap[i >>> 6] |= 1L << i;
+            }
+        }
+        return bitmap;
+    }
+
+    @Benchmark
+    public long[] bulk() {
+        return store.reachable(TARGETS_X[0], TARGETS_Y[0]);
+    }
+
+    @Benchmark
+    public long[] bulkIds() {
+        return store.reachableIds(TARGETS_X[0], TARGETS_Y[0]);
+    }
+
+    @Benchmark
+    public long[][] bulkFourTargets() {
+        return store.reachable(TARGETS_X, TARGETS_Y);
+    }
+}
@@ -0,0 +1,64 @@
+package at.spengergasse.benchmark;
+
+import at.spengergasse.domain.Route;
+import at.spengergasse.domain.RoutePlanner;
+import at.spengergasse.domain.SpaceBase;
+import at.spengergasse.domain.SpaceBaseIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link RoutePlanner#plan} between random bases, with a low tank so that
+ * most routes have to go by the home base.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--enable-preview"})
+@State(Scope.Thread)
+public class RoutePlannerBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    int baseCount;
+
+    List<SpaceBase> bases;
+    RoutePlanner planner;
+    Random random;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // about the same density for every size
+        int extent = (int) Math.sqrt(baseCount * 2_000.0);
+        random = new Random(42);
+        bases = new ArrayList<>(baseCount);
+        for (int i = 0; i < baseCount; i++) {
+            bases.add(new SpaceBase("Base " + i, random.nextInt(extent), random.nextInt(extent)));
+        }
+        planner = new RoutePlanner(new SpaceBaseIndex(bases));
+    }
+
+    @Benchmark
+    public Optional<Route> plan() {
+        SpaceBase start = bases.get(random.nextInt(bases.size()));
+        SpaceBase home = bases.get(random.nextInt(bases.size()));
+        SpaceBase destination = bases.get(random.nextInt(bases.size()));
+        return planner.plan(start.getPosX(), start.getPosY(), 500.0, home, destination);
+    }
+}
@@ -0,0 +1,93 @@
+package at.spengergasse.benchmark;
+
+import at.spengergasse.domain.OperationStatus;
+import at.spengergasse.domain.Shards;
+import at.spengergasse.domain.SpaceBase;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transfers through {@link Shards}, a batch of them at a time: every lane
+ * is a ship going back and forth between two bases at the same position (so
+ * it never runs out of fuel), on the same shard or, for the given share of
+ * lanes, on different ones. Compare the runs by shard count on a machine
+ * with at least as many cores as shards to see how throughput scales.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--enable-preview", "-Xms8g", "-Xmx8g"})
+@State(Scope.Benchmark)
+public class ShardsBenchmark {
+
+    static final int LANES = 4096;
+
+    @Param({"1", "2", "4", "8"})
+    int shardCount;
+
+    @Param({"0", "10"})
+    int crossShardPercent;
+
+    Shards shards;
+    long[] ids = new long[LANES];
+    SpaceBase[] from = new SpaceBase[LANES];
+    SpaceBase[] to = new SpaceBase[LANES];
+    CompletableFuture<?>[] answers = new CompletableFuture<?>[LANES];
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        Random random = new Random(42);
+        // two bases per shard, dealt out in turn: base i is on shard i % shardCount
+        List<SpaceBase> bases = new ArrayList<>();
+        for (int i = 0; i < 2 * shardCount; i++) {
+            bases.add(new SpaceBase("Base " + i, 0, 0));
+        }
+        for (int lane = 0; lane < LANES; lane++) {
+            int shard = lane % shardCount;
+            from[lane] = bases.get(shard);
+            boolean cross = shardCount > 1 && random.nextInt(100) < crossShardPercent;
+            to[lane] = bases.get(shardCount + (cross ? (shard + 1) % shardCount : shard));
+            ids[lane] = from[lane].buildShip();
+        }
+        shards = Shards.start(shardCount, bases);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws InterruptedException {
+        shards.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LANES)
+    public void moveShipTo() {
+        for (int lane = 0; lane < LANES; lane++) {
+            answers[lane] = shards.moveShipTo(from[lane], ids[lane], to[lane]);
+        }
+        for (int lane = 0; lane < LANES; lane++) {
+            if (answers[lane].join() == OperationStatus.OK) {
+                SpaceBase spaceBase = from[lane];
+                from[lane] = to[lane];
+                to[lane] = spaceBase;
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package at.spengergasse.benchmark;
+
+import at.spengergasse.domain.FleetStore;
+import at.spengergasse.domain.Simulation;
+import at.spengergasse.domain.SpaceBase;
+import at.spengergasse.domain.SpaceShip;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Simulation#tick} over flights which are far from arriving, so every
+ * tick only advances positions and fuel.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--enable-preview", "-Xms8g", "-Xmx8g"})
+@State(Scope.Benchmark)
+public class SimulationBenchmark {
+
+    @Param({"10000", "1000000"})
+    int flights;
+
+    @Param({"1", "4", "16"})
+    int threads;
+
+    ForkJoinPool pool;
+    Simulation simulation;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        Random random = new Random(42);
+        FleetStore store = FleetStore.onHeap();
+        SpaceBase start = new SpaceBase("Start", 0, 0);
+        SpaceBase[] destinations = new SpaceBase[64];
+        for (int i = 0; i < destinations.length; i++) {
+            destinations[i] = new SpaceBase("Destination " + i, 400 + random.nextInt(100), 400 + random.nextInt(100));
+        }
+        pool = new ForkJoinPool(threads);
+        // a crawl, so that no flight arrives within an iteration
+        simulation = new Simulation(1e-6, pool);
+        for (int i = 0; i < flights; i++) {
+            SpaceShip spaceship = new SpaceShip(store, start, 0, 0, 2000.0);
+            simulation.launch(spaceship, destinations[random.nextInt(destinations.length)]);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public int tick() {
+        return simulation.tick();
+    }
+}
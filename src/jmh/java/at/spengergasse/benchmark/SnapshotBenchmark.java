@@ -0,0 +1,73 @@
+package at.spengergasse.benchmark;
+
+import at.spengergasse.domain.FleetStore;
+import at.spengergasse.domain.Snapshot;
+import at.spengergasse.domain.SpaceBase;
+import at.spengergasse.domain.SpaceShip;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing and restoring a {@link Snapshot} of one base with its fleet.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"--enable-preview", "-Xms8g", "-Xmx8g"})
+@State(Scope.Thread)
+public class SnapshotBenchmark {
+
+    @Param({"100000", "1000000", "10000000"})
+    int fleetSize;
+
+    FleetStore store;
+    SpaceBase base;
+    Path file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        store = FleetStore.offHeap();
+        SpaceShip.setDefaultStore(store);
+        base = Fleets.baseWithShips("Snapshot", 0, 0, fleetSize);
+        file = Files.createTempFile("spacebase", ".snapshot");
+        Snapshot.write(file, store, List.of(base));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+        SpaceShip.setDefaultStore(FleetStore.onHeap());
+        store.close();
+    }
+
+    @Benchmark
+    public void write() throws IOException {
+        Snapshot.write(file, store, List.of(base));
+    }
+
+    @Benchmark
+    public List<SpaceBase> read() throws IOException {
+        // a fresh store each time, so restored ships do not pile up
+        try (FleetStore restored = FleetStore.offHeap()) {
+            return Snapshot.read(file, restored);
+        }
+    }
+}
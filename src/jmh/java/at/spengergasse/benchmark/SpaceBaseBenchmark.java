@@ -0,0 +1,99 @@
+package at.spengergasse.benchmark;
+
+import at.spengergasse.domain.SpaceBase;
+import at.spengergasse.domain.SpaceBaseView;
+import at.spengergasse.domain.SpaceShip;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-threaded hot paths of {@link SpaceBase} at fleet sizes from 10^2 to 10^7.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--enable-preview", "-Xms8g", "-Xmx8g"})
+@State(Scope.Thread)
+public class SpaceBaseBenchmark {
+
+    @Param({"100", "1000", "10000", "100000", "1000000", "10000000"})
+    int fleetSize;
+
+    // base holding fleetSize ships and an empty harbour at the same position,
+    // so moving between them burns no fuel
+    SpaceBase base;
+    SpaceBase harbour;
+    Long visitorId;
+
+    // rebuilt per iteration because buildShip() keeps adding ships
+    SpaceBase shipyard;
+
+    @Setup(Level.Trial)
+    public void setUpFleet() {
+        base = Fleets.baseWithShips("Alpha", 10, 10, fleetSize);
+        harbour = new SpaceBase("Harbour", 10, 10);
+        SpaceShip visitor = new SpaceShip(harbour, 10, 10, Fleets.FUEL);
+        harbour.docking(visitor);
+        visitorId = visitor.getId();
+    }
+
+    @Setup(Level.Iteration)
+    public void setUpShipyard() {
+        shipyard = Fleets.baseWithShips("Shipyard", 20, 20, fleetSize);
+    }
+
+    /**
+     * A ship arriving at the large base and leaving it again. Both legs go
+     * through docking() on the receiving base.
+     */
+    @Benchmark
+    @OperationsPerInvocation(2)
+    public SpaceShip docking() {
+        harbour.moveShipTo(visitorId, base);
+        return base.moveShipTo(visitorId, harbour);
+    }
+
+    @Benchmark
+    public SpaceShip moveShipTo() {
+        SpaceShip moved = harbour.moveShipTo(visitorId, base);
+        if (moved == null) {
+            moved = base.moveShipTo(visitorId, harbour);
+        }
+        return moved;
+    }
+
+    @Benchmark
+    public List<SpaceShip> arrangeShips() {
+        return base.arrangeShips();
+    }
+
+    @Benchmark
+    public SpaceBaseView snapshot() {
+        return base.snapshot();
+    }
+
+    @Benchmark
+    public List<SpaceShip> arrangeShipsByFuel() {
+        return base.arrangeShipsByFuel();
+    }
+
+    @Benchmark
+    public Long buildShip() {
+        return shipyard.buildShip();
+    }
+}
@@ -0,0 +1,58 @@
+package at.spengergasse.benchmark;
+
+import at.spengergasse.domain.SpaceShip;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SpaceShip#moveTo} across a fleet, visiting one ship per call so that
+ * large fleets pay for their cache misses.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--enable-preview", "-Xms8g", "-Xmx8g"})
+@State(Scope.Thread)
+public class SpaceShipBenchmark {
+
+    @Param({"100", "1000", "10000", "100000", "1000000", "10000000"})
+    int fleetSize;
+
+    SpaceShip[] ships;
+    int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ships = Fleets.ships(fleetSize);
+    }
+
+    @Benchmark
+    public SpaceShip moveTo() {
+        SpaceShip spaceship = ships[next];
+        next = next + 1 == ships.length ? 0 : next + 1;
+
+        // hop between 0/0 and 3/4, docking at home once the tank runs low
+        if (spaceship.getFuel() < 100.0) {
+            spaceship.setDockingBase(spaceship.getHomeBase());
+        }
+        if (spaceship.getPosX() == 0) {
+            spaceship.moveTo(3, 4);
+        } else {
+            spaceship.moveTo(0, 0);
+        }
+        return spaceship;
+    }
+}
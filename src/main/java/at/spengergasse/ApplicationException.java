@@ -13,14 +13,31 @@ package at.spengergasse;
 // - For things which are foreseeable
 //  e.g. parameter validation
 
+// 3) Stack traces
+// - filling in the stack trace is the expensive part of creating an exception
+// - for expected failures under load it can be switched off globally, either
+//   with setStackTraceEnabled(false) or -Dspacebase.exceptions.stackTrace=false
+// - the non-throwing tryXxx methods (see OperationStatus) avoid exceptions at all
+
 //public class ApplicationException extends Exception {
 public class ApplicationException extends RuntimeException {
 
+    private static volatile boolean stackTraceEnabled =
+        Boolean.parseBoolean(System.getProperty("spacebase.exceptions.stackTrace", "true"));
+
     public ApplicationException(String message) {
-        super(message);
+        super(message, null, true, stackTraceEnabled);
     }
 
     public ApplicationException(String message, Throwable cause) {
-        super(message, cause);
+        super(message, cause, true, stackTraceEnabled);
+    }
+
+    public static boolean isStackTraceEnabled() {
+        return stackTraceEnabled;
+    }
+
+    public static void setStackTraceEnabled(boolean enabled) {
+        stackTraceEnabled = enabled;
     }
 }
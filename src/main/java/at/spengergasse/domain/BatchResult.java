@@ -0,0 +1,80 @@
+package at.spengergasse.domain;
+
+
+/**
+ * Outcome of a batch operation, one entry per item in the order the items
+ * were passed in: the id of the spaceship and the status of the item.
+ */
+public final class BatchResult {
+
+    /** Id reported for an item which was null. */
+    public static final long NO_ID = -1L;
+
+    private final long[] ids;
+    // OperationStatus ordinals, 0 is OK
+    private final byte[] statuses;
+    private int failureCount;
+
+    BatchResult(int size) {
+        ids = new long[size];
+        statuses = new byte[size];
+    }
+
+    void succeeded(int item, long id) {
+        ids[item] = id;
+    }
+
+    void failed(int item, long id, OperationStatus status) {
+        ids[item] = id;
+        statuses[item] = (byte) status.ordinal();
+        failureCount++;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public long id(int item) {
+        return ids[item];
+    }
+
+    public boolean succeeded(int item) {
+        return statuses[item] == 0;
+    }
+
+    public OperationStatus status(int item) {
+        return OperationStatus.ofOrdinal(statuses[item]);
+    }
+
+    public int successCount() {
+        return ids.length - failureCount;
+    }
+
+    public int failureCount() {
+        return failureCount;
+    }
+
+    /**
+     * @return the ids of the items which succeeded, in item order
+     */
+    public long[] succeededIds() {
+        long[] succeeded = new long[successCount()];
+        int next = 0;
+        for (int item = 0; item < ids.length; item++) {
+            if (statuses[item] == 0)
+                succeeded[next++] = ids[item];
+        }
+        return succeeded;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("BatchResult ");
+        sb.append(successCount()).append("/").append(ids.length).append(" succeeded");
+        for (int item = 0; item < ids.length; item++) {
+            if (statuses[item] != 0)
+                sb.append(", id ").append(ids[item]).append(" ").append(status(item));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,29 @@
+package at.spengergasse.domain;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+
+/**
+ * JFR event of {@link SpaceBase#docking}.
+ */
+@Name("at.spengergasse.Docking")
+@Label("Docking")
+@Category("SpaceBase")
+@Description("A spaceship docks at a space base")
+@StackTrace(false)
+final class DockingEvent extends Event {
+
+    @Label("Ship Id")
+    long shipId;
+
+    @Label("Base")
+    String base;
+
+    @Label("Status")
+    String status;
+}
@@ -0,0 +1,214 @@
+package at.spengergasse.domain;
+
+import at.spengergasse.ApplicationException;
+import at.spengergasse.foundation.LongOrderedMap;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+import static at.spengergasse.foundation.Assert.isNotNull;
+import static at.spengergasse.foundation.Assert.isTrue;
+
+
+/**
+ * A space base with a limited number of bays and fuel pumps, in contrast to
+ * {@link SpaceBase#docking}, which takes any number of ships at once and
+ * fills a ship up the moment it docks at its home base.
+ *
+ * Arriving spaceships wait in a queue ordered by urgency: the ship with the
+ * least fuel comes first, ships with equal fuel in the order they arrived.
+ * A waiting ship keeps the place its fuel on arrival gave it, even if its
+ * fuel changes before it is admitted; the pumps go by the current fuel, which
+ * is read again on admission and after every pump.
+ * Every {@link #tick} admits waiting ships while bays are free, then lets
+ * each pump give one ship at its home base up to the pump rate, again the
+ * ship with the least fuel first. A ship pumped this tick may lose its pump
+ * to a ship with less fuel in the next one. Every ship docked at the base
+ * takes a bay, however it got there, until it leaves. A ship docked at
+ * another base by the time its turn comes is dropped from the queue.
+ *
+ * Both queues are binary heaps, so admitting or pumping a ship costs
+ * O(log n) in the number of waiting ships.
+ *
+ * Not thread-safe: one thread lets ships arrive and ticks. Times are counted
+ * in ticks.
+ */
+public class DockingScheduler {
+
+    // least fuel first, then first come first served
+    private static final Comparator<Waiting> URGENCY =
+        Comparator.comparingDouble(Waiting::fuel).thenComparingLong(Waiting::sequence);
+
+    private final SpaceBase spaceBase;
+    private final int bays;
+    private final int pumps;
+    private final double pumpRate;
+
+    private final PriorityQueue<Waiting> arrivals = new PriorityQueue<>(URGENCY);
+    private final PriorityQueue<Waiting> refuelling = new PriorityQueue<>(URGENCY);
+    private final LongOrderedMap<Boolean> waiting = new LongOrderedMap<>();
+    private final Waiting[] pumped;
+    private long sequence;
+
+    // statistics
+    private long ticks;
+    private long arrived;
+    private long admitted;
+    private long refuelled;
+    private double fuelPumped;
+    private long totalWait;
+    private long maxWait;
+
+    /**
+     * @param pumpRate fuel a pump gives per tick
+     */
+    public DockingScheduler(SpaceBase spaceBase, int bays, int pumps, double pumpRate) throws ApplicationException {
+        this.spaceBase = isNotNull(spaceBase, "spaceBase");
+        isTrue(bays > 0, "bays %d is not positive", bays);
+        isTrue(pumps > 0, "pumps %d is not positive", pumps);
+        isTrue(pumpRate > 0.0, "pumpRate %s is not positive", pumpRate);
+        this.bays = bays;
+        this.pumps = pumps;
+        this.pumpRate = pumpRate;
+        this.pumped = new Waiting[pumps];
+    }
+
+
+    // Arrivals --------------------------------------------------------------------
+
+    /**
+     * Queues the spaceship for a bay; it docks on one of the next ticks.
+     */
+    public OperationStatus arrive(SpaceShip spaceship) {
+        if (spaceship == null)
+            return OperationStatus.NULL_ARGUMENT;
+        if (waiting.containsKey(spaceship.id()))
+            return OperationStatus.WAITING;
+        if (spaceBase.snapshot().isDocked(spaceship.id()))
+            return OperationStatus.ALREADY_DOCKED;
+
+        waiting.put(spaceship.id(), Boolean.TRUE);
+        arrivals.offer(new Waiting(spaceship, spaceship.getFuel(), sequence++, ticks));
+        arrived++;
+        return OperationStatus.OK;
+    }
+
+    /**
+     * @return the number of ships waiting for a bay
+     */
+    public int waiting() {
+        return arrivals.size();
+    }
+
+    public boolean isWaiting(SpaceShip spaceship) {
+        return spaceship != null && waiting.containsKey(spaceship.id());
+    }
+
+    public SpaceBase getSpaceBase() {
+        return spaceBase;
+    }
+
+
+    // Ticks -----------------------------------------------------------------------
+
+    /**
+     * Admits waiting ships into the free bays, then runs the pumps.
+     *
+     * @return the number of ships admitted
+     */
+    public int tick() {
+        int admittedNow = admit();
+        pump();
+        ticks++;
+        return admittedNow;
+    }
+
+    private int admit() {
+        int free = bays - spaceBase.snapshot().shipCount();
+        int admittedNow = 0;
+        while (admittedNow < free && !arrivals.isEmpty()) {
+            Waiting next = arrivals.poll();
+            SpaceShip spaceship = next.spaceship();
+            waiting.remove(spaceship.id());
+            // docked here or at another base while it waited
+            if (!spaceBase.tryDockingUnlessElsewhere(spaceship, false).isOk())
+                continue;
+
+            admittedNow++;
+            long wait = ticks - next.since();
+            totalWait += wait;
+            maxWait = Math.max(maxWait, wait);
+            if (needsFuel(spaceship)) {
+                refuelling.offer(new Waiting(spaceship, spaceship.getFuel(), sequence++, ticks));
+            }
+        }
+        admitted += admittedNow;
+        return admittedNow;
+    }
+
+    private void pump() {
+        int busy = 0;
+        while (busy < pumps && !refuelling.isEmpty()) {
+            Waiting next = refuelling.poll();
+            SpaceShip spaceship = next.spaceship();
+            // left the base before it was full
+            if (!needsFuel(spaceship))
+                continue;
+
+            double fuel = Math.min(pumpRate, SpaceShip.MAX_FUEL - spaceship.getFuel());
+            if (spaceship.tryRefuel(fuel).isOk()) {
+                fuelPumped += fuel;
+            }
+            pumped[busy++] = next;
+        }
+        // back in line only now, so that no ship gets two pumps in one tick
+        for (int i = 0; i < busy; i++) {
+            SpaceShip spaceship = pumped[i].spaceship();
+            if (needsFuel(spaceship)) {
+                refuelling.offer(new Waiting(spaceship, spaceship.getFuel(), pumped[i].sequence(), pumped[i].since()));
+            } else {
+                refuelled++;
+            }
+            pumped[i] = null;
+        }
+    }
+
+    private boolean needsFuel(SpaceShip spaceship) {
+        return spaceship.getDockingBase() == spaceBase
+            && spaceship.isHomeBase(spaceBase)
+            && spaceship.getFuel() < SpaceShip.MAX_FUEL;
+    }
+
+
+    // Statistics ------------------------------------------------------------------
+
+    public Statistics statistics() {
+        return new Statistics(ticks, arrived, admitted, refuelled, fuelPumped, totalWait, maxWait, arrivals.size());
+    }
+
+    /**
+     * @param refuelled ships pumped full
+     * @param totalWait ticks all admitted ships waited for a bay together
+     * @param waiting ships still waiting for a bay
+     */
+    public record Statistics(long ticks, long arrived, long admitted, long refuelled, double fuelPumped,
+                             long totalWait, long maxWait, int waiting) {
+
+        /**
+         * @return admitted ships per tick
+         */
+        public double throughput() {
+            return ticks > 0 ? (double) admitted / ticks : 0.0;
+        }
+
+        /**
+         * @return ticks an admitted ship waited for a bay, on average
+         */
+        public double meanWait() {
+            return admitted > 0 ? (double) totalWait / admitted : 0.0;
+        }
+    }
+
+    private record Waiting(SpaceShip spaceship, double fuel, long sequence, long since) {
+    }
+}
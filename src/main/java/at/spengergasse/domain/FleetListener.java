@@ -0,0 +1,62 @@
+package at.spengergasse.domain;
+
+
+/**
+ * Gets told about every change of space bases and spaceships, see
+ * {@link FleetListeners#add}.
+ *
+ * The callbacks run on the thread making the change, while the locks of the
+ * bases involved are held, in the order the changes happen. They have to be
+ * quick and must not call back into space bases.
+ */
+public interface FleetListener {
+
+    /**
+     * A base was created or renamed.
+     */
+    default void baseChanged(SpaceBase spaceBase) {
+    }
+
+    /**
+     * A spaceship was created, moved, refuelled or got a new docking base.
+     */
+    default void shipChanged(SpaceShip spaceship) {
+    }
+
+    /**
+     * A spaceship got a berth at the base.
+     */
+    default void docked(SpaceBase spaceBase, SpaceShip spaceship) {
+    }
+
+    /**
+     * A spaceship left its berth at the base.
+     */
+    default void departed(SpaceBase spaceBase, SpaceShip spaceship) {
+    }
+
+    /**
+     * A spaceship was built at the base, it docks there right after.
+     */
+    default void built(SpaceBase spaceBase, SpaceShip spaceship) {
+    }
+
+    /**
+     * A spaceship took in the given amount of fuel, after shipChanged.
+     */
+    default void refuelled(SpaceShip spaceship, double amount) {
+    }
+
+    /**
+     * A spaceship arrived at a new position, after shipChanged.
+     */
+    default void moved(SpaceShip spaceship) {
+    }
+
+    /**
+     * A public operation has finished and released its locks. Called on the
+     * same thread as the callbacks of its changes.
+     */
+    default void completed() {
+    }
+}
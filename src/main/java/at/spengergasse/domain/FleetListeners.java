@@ -0,0 +1,102 @@
+package at.spengergasse.domain;
+
+import java.util.Arrays;
+
+import static at.spengergasse.foundation.Assert.isNotNull;
+
+
+/**
+ * The registered {@link FleetListener}s.
+ *
+ * Without listeners, a change costs one volatile read.
+ */
+public final class FleetListeners {
+
+    private static final FleetListener[] NONE = new FleetListener[0];
+    private static final Object lock = new Object();
+    private static volatile FleetListener[] listeners = NONE;
+
+    private FleetListeners() {
+    }
+
+    public static void add(FleetListener listener) {
+        isNotNull(listener, "listener");
+
+        synchronized (lock) {
+            FleetListener[] current = listeners;
+            FleetListener[] added = Arrays.copyOf(current, current.length + 1);
+            added[current.length] = listener;
+            listeners = added;
+        }
+    }
+
+    /**
+     * @return false if the listener was not registered
+     */
+    public static boolean remove(FleetListener listener) {
+        synchronized (lock) {
+            FleetListener[] current = listeners;
+            for (int i = 0; i < current.length; i++) {
+                if (current[i] == listener) {
+                    FleetListener[] removed = new FleetListener[current.length - 1];
+                    System.arraycopy(current, 0, removed, 0, i);
+                    System.arraycopy(current, i + 1, removed, i, current.length - i - 1);
+                    listeners = removed.length > 0 ? removed : NONE;
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+
+    // Dispatch --------------------------------------------------------------------
+
+    static void baseChanged(SpaceBase spaceBase) {
+        for (FleetListener listener : listeners) {
+            listener.baseChanged(spaceBase);
+        }
+    }
+
+    static void shipChanged(SpaceShip spaceship) {
+        for (FleetListener listener : listeners) {
+            listener.shipChanged(spaceship);
+        }
+    }
+
+    static void docked(SpaceBase spaceBase, SpaceShip spaceship) {
+        for (FleetListener listener : listeners) {
+            listener.docked(spaceBase, spaceship);
+        }
+    }
+
+    static void departed(SpaceBase spaceBase, SpaceShip spaceship) {
+        for (FleetListener listener : listeners) {
+            listener.departed(spaceBase, spaceship);
+        }
+    }
+
+    static void built(SpaceBase spaceBase, SpaceShip spaceship) {
+        for (FleetListener listener : listeners) {
+            listener.built(spaceBase, spaceship);
+        }
+    }
+
+    static void refuelled(SpaceShip spaceship, double amount) {
+        for (FleetListener listener : listeners) {
+            listener.refuelled(spaceship, amount);
+        }
+    }
+
+    static void moved(SpaceShip spaceship) {
+        for (FleetListener listener : listeners) {
+            listener.moved(spaceship);
+        }
+    }
+
+    static void completed() {
+        for (FleetListener listener : listeners) {
+            listener.completed();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package at.spengergasse.domain;
+
+
+/**
+ * Column storage for the state of spaceships.
+ *
+ * Every spaceship occupies one slot; its id, position, fuel and the indexes of
+ * its home and docking base are kept in primitive columns instead of object
+ * fields. {@link SpaceShip} is a small handle (store and slot) on top of it.
+ *
+ * Slots are never freed, a store keeps the state of every ship ever put into
+ * it; a short-lived fleet is best given a store of its own. The base columns
+ * only hold indexes, so it is the {@link SpaceShip} objects which keep their
+ * bases from being collected, not the store. Allocating slots and reading or writing different
+ * slots from several threads is safe; writing the same slot concurrently needs
+ * outside synchronisation, just like writing the fields of one object.
+ */
+public interface FleetStore extends AutoCloseable {
+
+    /** Marks a missing base in the home and docking base columns. */
+    int NO_BASE = -1;
+
+    /**
+     * Column store on the Java heap.
+     */
+    static FleetStore onHeap() {
+        return new HeapFleetStore();
+    }
+
+    /**
+     * Column store in native memory, which the garbage collector never has
+     * to scan or move. The memory is released by {@link #close()}.
+     */
+    static FleetStore offHeap() {
+        return new OffHeapFleetStore();
+    }
+
+    /**
+     * Reserves a new slot for the given id, all other columns are zero and
+     * both base columns are {@link #NO_BASE}.
+     *
+     * @return the slot
+     */
+    int allocate(long id);
+
+    /**
+     * @return the number of allocated slots
+     */
+    int size();
+
+    long id(int slot);
+
+    int posX(int slot);
+
+    void setPosX(int slot, int posX);
+
+    int posY(int slot);
+
+    void setPosY(int slot, int posY);
+
+    double fuel(int slot);
+
+    void setFuel(int slot, double fuel);
+
+    int homeBase(int slot);
+
+    void setHomeBase(int slot, int baseIndex);
+
+    int dockingBase(int slot);
+
+    void setDockingBase(int slot, int baseIndex);
+
+    /**
+     * @return where the docked ships of this store are, by id
+     */
+    ShipDirectory directory();
+
+
+
+    // Bulk queries ----------------------------------------------------------------
+
+    /**
+     * Finds the ships which can move to the position with their fuel, by the
+     * same rules as {@link SpaceShip#moveTo}.
+     *
+     * @return a bitmap with the bit {@code slot % 64} of word {@code slot / 64}
+     *         set for every such slot
+     */
+    default long[] reachable(int posX, int posY) {
+        return reachable(new int[] { posX }, new int[] { posY })[0];
+    }
+
+    /**
+     * Like {@link #reachable(int, int)} for several positions at once, which
+     * reads the columns only once.
+     *
+     * @return one bitmap per position
+     */
+    default long[][] reachable(int[] posX, int[] posY) {
+        int size = size();
+        long[][] bitmaps = new long[posX.length][(size + 63) >>> 6];
+        for (int slot = 0; slot < size; slot++) {
+            for (int target = 0; target < posX.length; target++) {
+                double distance = SpaceShip.distanceBetween(posX(slot), posY(slot), posX[target], posY[target]);
+                if (SpaceShip.canTravel(fuel(slot), distance)) {
+                    bitmaps[target][slot >>> 6] |= 1L << slot;
+                }
+            }
+        }
+        return bitmaps;
+    }
+
+    /**
+     * @return the ids of the ships which can move to the position with their fuel
+     */
+    default long[] reachableIds(int posX, int posY) {
+        long[] bitmap = reachable(posX, posY);
+        int count = 0;
+        for (long word : bitmap) {
+            count += Long.bitCount(word);
+        }
+        long[] ids = new long[count];
+        int next = 0;
+        for (int word = 0; word < bitmap.length; word++) {
+            for (long bits = bitmap[word]; bits != 0; bits &= bits - 1) {
+                ids[next++] = id((word << 6) + Long.numberOfTrailingZeros(bits));
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * @return by slot, the fuel each ship would burn moving to the position
+     */
+    default double[] consumptions(int posX, int posY) {
+        double[] consumptions = new double[size()];
+        for (int slot = 0; slot < consumptions.length; slot++) {
+            consumptions[slot] = SpaceShip.consumptionFor(SpaceShip.distanceBetween(posX(slot), posY(slot), posX, posY));
+        }
+        return consumptions;
+    }
+
+    @Override
+    default void close() {
+    }
+}
@@ -0,0 +1,125 @@
+package at.spengergasse.domain;
+
+import java.util.Arrays;
+
+
+/**
+ * {@link FleetStore} keeping its columns in primitive arrays on the heap.
+ */
+class HeapFleetStore extends PagedFleetStore<HeapFleetStore.Page> {
+
+    static final class Page {
+        final long[] id = new long[PAGE_SIZE];
+        final int[] posX = new int[PAGE_SIZE];
+        final int[] posY = new int[PAGE_SIZE];
+        final double[] fuel = new double[PAGE_SIZE];
+        final int[] homeBase = new int[PAGE_SIZE];
+        final int[] dockingBase = new int[PAGE_SIZE];
+
+        Page() {
+            Arrays.fill(homeBase, NO_BASE);
+            Arrays.fill(dockingBase, NO_BASE);
+        }
+    }
+
+    @Override
+    Page newPage() {
+        return new Page();
+    }
+
+    @Override
+    void initialize(Page page, int offset, long id) {
+        page.id[offset] = id;
+    }
+
+    @Override
+    public long id(int slot) {
+        return page(slot).id[slot & PAGE_MASK];
+    }
+
+    @Override
+    public int posX(int slot) {
+        return page(slot).posX[slot & PAGE_MASK];
+    }
+
+    @Override
+    public void setPosX(int slot, int posX) {
+        page(slot).posX[slot & PAGE_MASK] = posX;
+    }
+
+    @Override
+    public int posY(int slot) {
+        return page(slot).posY[slot & PAGE_MASK];
+    }
+
+    @Override
+    public void setPosY(int slot, int posY) {
+        page(slot).posY[slot & PAGE_MASK] = posY;
+    }
+
+    @Override
+    public double fuel(int slot) {
+        return page(slot).fuel[slot & PAGE_MASK];
+    }
+
+    @Override
+    public void setFuel(int slot, double fuel) {
+        page(slot).fuel[slot & PAGE_MASK] = fuel;
+    }
+
+    @Override
+    public int homeBase(int slot) {
+        return page(slot).homeBase[slot & PAGE_MASK];
+    }
+
+    @Override
+    public void setHomeBase(int slot, int baseIndex) {
+        page(slot).homeBase[slot & PAGE_MASK] = baseIndex;
+    }
+
+    @Override
+    public int dockingBase(int slot) {
+        return page(slot).dockingBase[slot & PAGE_MASK];
+    }
+
+    @Override
+    public void setDockingBase(int slot, int baseIndex) {
+        page(slot).dockingBase[slot & PAGE_MASK] = baseIndex;
+    }
+
+    // 64 slots per word without branches, a loop the JIT unrolls and vectorises
+    @Override
+    void reachable(Page page, int count, int posX, int posY, long[] bitmap, int firstWord) {
+        int[] xs = page.posX;
+        int[] ys = page.posY;
+        double[] fuel = page.fuel;
+        int fullWords = count >>> 6;
+        for (int word = 0; word < fullWords; word++) {
+            int first = word << 6;
+            long bits = 0L;
+            for (int bit = 0; bit < 64; bit++) {
+                int i = first + bit;
+                long reachable = canTravel(xs[i], ys[i], fuel[i], posX, posY) ? 1L : 0L;
+                bits |= reachable << bit;
+            }
+            bitmap[firstWord + word] = bits;
+        }
+        long bits = 0L;
+        for (int i = fullWords << 6; i < count; i++) {
+            long reachable = canTravel(xs[i], ys[i], fuel[i], posX, posY) ? 1L : 0L;
+            bits |= reachable << i;
+        }
+        if ((count & 63) != 0) {
+            bitmap[firstWord + fullWords] = bits;
+        }
+    }
+
+    @Override
+    void consumptions(Page page, int count, int posX, int posY, double[] consumptions, int offset) {
+        int[] xs = page.posX;
+        int[] ys = page.posY;
+        for (int i = 0; i < count; i++) {
+            consumptions[offset + i] = consumption(xs[i], ys[i], posX, posY);
+        }
+    }
+}
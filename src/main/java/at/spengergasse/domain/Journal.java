@@ -0,0 +1,715 @@
+package at.spengergasse.domain;
+
+import at.spengergasse.ApplicationException;
+import at.spengergasse.foundation.LongOrderedMap;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+
+import static at.spengergasse.foundation.Assert.isNotNull;
+import static at.spengergasse.foundation.Assert.isTrue;
+
+
+/**
+ * Write-ahead journal of all changes to space bases and spaceships since the
+ * last {@link Snapshot}.
+ *
+ * The journal is a {@link FleetListener}: every change is appended as a small
+ * binary record which holds the new state (not the call), so replaying a
+ * record twice does no harm. A background thread writes the records and
+ * forces them to disk; with {@link Durability#GROUP_COMMIT} an operation only
+ * returns once its records are on disk, and all operations waiting at the
+ * same time share one fsync.
+ *
+ * An operation (all changes up to {@link #completed()} on one thread) is
+ * durable as a whole or not at all: its records are collected by its thread
+ * and only appended to the journal, in one piece, once it completes. The
+ * background thread follows what it wrote with a commit record, and replay
+ * ignores everything after the last commit record, so a crash in the middle
+ * of a transfer does not leave the ship docked at two bases or at none. The
+ * record of a base seen for the first time is appended right away, to keep
+ * the base numbers in order.
+ *
+ * <pre>
+ * // at startup
+ * List&lt;SpaceBase&gt; bases = Files.exists(snapshot) ? Snapshot.read(snapshot, store) : new ArrayList&lt;&gt;();
+ * bases = Journal.replay(journalFile, bases, store);
+ * Journal journal = Journal.open(journalFile, bases, Durability.GROUP_COMMIT);
+ * ...
+ * journal.checkpoint(snapshot, store);
+ * </pre>
+ *
+ * Bases are referred to by their number: the position in the list of bases
+ * the journal was opened with, followed by the bases it has seen since, in
+ * the order it first saw them.
+ *
+ * Records, all numbers little endian, each followed by the CRC32C of its
+ * type byte and content:
+ * <pre>
+ * 1 base     int number, int posX, int posY, short name length, name (UTF-8)
+ * 2 ship     long id, int posX, int posY, double fuel, int home base, int docking base
+ * 3 docked   int base, long ship id
+ * 4 departed int base, long ship id
+ * 5 commit   -
+ * </pre>
+ */
+public final class Journal implements FleetListener, AutoCloseable {
+
+    public enum Durability {
+        /** Operations wait until their changes are on disk. */
+        GROUP_COMMIT,
+        /** Operations do not wait; changes reach the disk shortly after. */
+        BACKGROUND
+    }
+
+    static final byte BASE = 1;
+    static final byte SHIP = 2;
+    static final byte DOCKED = 3;
+    static final byte DEPARTED = 4;
+    static final byte COMMIT = 5;
+
+    private static final int SHIP_RECORD = 1 + 8 + 4 + 4 + 8 + 4 + 4 + 4;
+    private static final int BERTH_RECORD = 1 + 4 + 8 + 4;
+    private static final int COMMIT_RECORD = 1 + 4;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int OPERATION_SIZE = 1 << 10;
+    private static final int READ_SIZE = 1 << 20;
+
+    private final FileChannel channel;
+    private final Durability durability;
+    private final Thread flusher;
+
+    // guards everything below; taken while base locks are held, never the other way round
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition pending = lock.newCondition();
+    private final Condition flushed = lock.newCondition();
+
+    private ByteBuffer buffer = newBuffer(BUFFER_SIZE);
+    private ByteBuffer spare = newBuffer(BUFFER_SIZE);
+    private final CRC32C crc = new CRC32C();
+    private final ByteBuffer commit = newBuffer(COMMIT_RECORD);
+
+    // journal numbers of the bases, by base index
+    private int[] numbers = new int[0];
+    private final List<SpaceBase> bases = new ArrayList<>();
+
+    // bytes appended and bytes on disk, counted since opening
+    private long appended;
+    private long durable;
+    private IOException failure;
+    private boolean closed;
+    // the flusher is writing, outside the lock
+    private boolean writing;
+    // counts the checkpoints, which take over the records of operations under way
+    private long epoch;
+
+    private final ThreadLocal<Operation> operation = ThreadLocal.withInitial(Operation::new);
+
+    private Journal(FileChannel channel, List<SpaceBase> spaceBases, Durability durability) {
+        this.channel = channel;
+        this.durability = durability;
+        for (SpaceBase spaceBase : spaceBases) {
+            number(spaceBase);
+        }
+        crc.update(COMMIT);
+        commit.put(COMMIT).putInt((int) crc.getValue()).flip();
+        flusher = Thread.ofPlatform()
+            .name("spacebase-journal")
+            .daemon()
+            .start(this::flushLoop);
+    }
+
+
+    // Opening ---------------------------------------------------------------------
+
+    /**
+     * Opens the journal for appending and registers it as listener. What
+     * follows the last commit record, left by a crash, is cut off.
+     *
+     * @param spaceBases the bases the numbers in the journal start from, as
+     *                   returned by {@link #replay}
+     */
+    public static Journal open(Path file, List<SpaceBase> spaceBases, Durability durability) throws IOException, ApplicationException {
+        isNotNull(file, "file");
+        isNotNull(spaceBases, "spaceBases");
+        isNotNull(durability, "durability");
+
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long valid = new Reader(channel).committed();
+            channel.truncate(valid);
+            channel.position(valid);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        Journal journal = new Journal(channel, spaceBases, durability);
+        FleetListeners.add(journal);
+        return journal;
+    }
+
+    /**
+     * Applies the journal to the given bases and the ships in the store, e.g.
+     * those of the last snapshot or none at all. Must run before the journal is
+     * opened and before any other changes are made. Replay stops at the last
+     * commit record, or at the first torn or corrupt record before it.
+     *
+     * @return the given bases followed by those created in the journal
+     */
+    public static List<SpaceBase> replay(Path file, List<SpaceBase> spaceBases, FleetStore store) throws IOException, ApplicationException {
+        isNotNull(file, "file");
+        isNotNull(spaceBases, "spaceBases");
+        isNotNull(store, "store");
+
+        List<SpaceBase> replayed = new ArrayList<>(spaceBases);
+        LongOrderedMap<SpaceShip> ships = new LongOrderedMap<>();
+        ships.ensureCapacity(store.size());
+        for (int slot = 0; slot < store.size(); slot++) {
+            ships.put(store.id(slot), new SpaceShip(store, slot));
+        }
+
+        if (!Files.exists(file))
+            return replayed;
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long committed = new Reader(channel).committed();
+            Reader reader = new Reader(channel);
+            ByteBuffer record;
+            while (reader.position < committed && (record = reader.next()) != null) {
+                apply(record, replayed, ships, store);
+            }
+        }
+        return replayed;
+    }
+
+    private static void apply(ByteBuffer record, List<SpaceBase> bases, LongOrderedMap<SpaceShip> ships, FleetStore store) throws ApplicationException {
+        switch (record.get()) {
+            case BASE -> {
+                int number = record.getInt();
+                int posX = record.getInt();
+                int posY = record.getInt();
+                byte[] name = new byte[record.getShort()];
+                record.get(name);
+                isTrue(number <= bases.size(), "journal: base number %d out of order", number);
+                if (number == bases.size()) {
+                    bases.add(new SpaceBase(new String(name, StandardCharsets.UTF_8), posX, posY));
+                } else {
+                    bases.get(number).setName(new String(name, StandardCharsets.UTF_8));
+                }
+            }
+            case SHIP -> {
+                long id = record.getLong();
+                SpaceShip spaceship = ships.get(id);
+                if (spaceship == null) {
+                    spaceship = new SpaceShip(store, store.allocate(id));
+                    ships.put(id, spaceship);
+                }
+                int slot = spaceship.getSlot();
+                store.setPosX(slot, record.getInt());
+                store.setPosY(slot, record.getInt());
+                store.setFuel(slot, record.getDouble());
+                store.setHomeBase(slot, index(bases, record.getInt()));
+                store.setDockingBase(slot, index(bases, record.getInt()));
+                spaceship.basesRestored();
+                // the berth is sorted by fuel
+                SpaceBase dockingBase = spaceship.getDockingBase();
+                if (dockingBase != null) {
+                    dockingBase.fuelChanged(spaceship);
+                }
+            }
+            case DOCKED -> {
+                SpaceBase spaceBase = base(bases, record.getInt());
+                long id = record.getLong();
+                SpaceShip spaceship = ships.get(id);
+                isTrue(spaceship != null, "journal: unknown spaceship id %d", id);
+                if (!spaceBase.isDocked(id)) {
+                    spaceBase.restoreShips(List.of(spaceship));
+                }
+            }
+            case DEPARTED -> base(bases, record.getInt()).restoreDeparture(record.getLong());
+            case COMMIT -> { }
+            default -> throw new ApplicationException("journal: unknown record type");
+        }
+    }
+
+    private static SpaceBase base(List<SpaceBase> bases, int number) throws ApplicationException {
+        isTrue(number >= 0 && number < bases.size(), "journal: unknown base number %d", number);
+        return bases.get(number);
+    }
+
+    private static int index(List<SpaceBase> bases, int number) throws ApplicationException {
+        return number != FleetStore.NO_BASE ? base(bases, number).getIndex() : FleetStore.NO_BASE;
+    }
+
+
+    // Checkpoints -----------------------------------------------------------------
+
+    /**
+     * Writes a snapshot of the store and all bases the journal knows, then
+     * empties the journal. Changes wait meanwhile, so none gets lost between
+     * the two.
+     *
+     * @return the bases in snapshot order, which are also the new base
+     *         numbers of the journal
+     */
+    public List<SpaceBase> checkpoint(Path snapshotFile, FleetStore store) throws IOException, ApplicationException {
+        isNotNull(snapshotFile, "snapshotFile");
+        isNotNull(store, "store");
+
+        while (true) {
+            Set<SpaceBase> included;
+            lock.lock();
+            try {
+                included = Snapshot.included(store, bases, store.size());
+            } finally {
+                lock.unlock();
+            }
+
+            // base locks before the journal lock, like every operation
+            SpaceBase[] locked = SpaceBase.lockAll(included);
+            try {
+                lock.lock();
+                try {
+                    // the ships to write, and the bases they refer to, once everything is locked
+                    int shipCount = store.size();
+                    Set<SpaceBase> snapshotBases = Snapshot.included(store, bases, shipCount);
+                    // a base created meanwhile would be locked out of order, start over
+                    if (!included.containsAll(snapshotBases))
+                        continue;
+
+                    // the snapshot takes over whatever is not written yet
+                    while (writing) {
+                        flushed.awaitUninterruptibly();
+                    }
+                    checkFailure();
+                    List<SpaceBase> snapshotted = Snapshot.write(snapshotFile, store, snapshotBases, shipCount);
+                    channel.truncate(0);
+                    channel.position(0);
+                    channel.force(true);
+                    buffer.clear();
+                    durable = appended;
+                    flushed.signalAll();
+                    Arrays.fill(numbers, FleetStore.NO_BASE);
+                    bases.clear();
+                    for (SpaceBase spaceBase : snapshotted) {
+                        number(spaceBase);
+                    }
+                    // the snapshot has the changes of operations under way so far
+                    epoch++;
+                    pending.signal();
+                    awaitDurable(appended);
+                    return snapshotted;
+                } finally {
+                    lock.unlock();
+                }
+            } finally {
+                SpaceBase.unlockAll(locked);
+            }
+        }
+    }
+
+
+    // Listener --------------------------------------------------------------------
+
+    @Override
+    public void baseChanged(SpaceBase spaceBase) {
+        lock.lock();
+        try {
+            Operation operation = begin();
+            if (isNumbered(spaceBase)) {
+                byte[] name = nameOf(spaceBase);
+                ByteBuffer out = operation.reserve(baseRecord(name));
+                int start = out.position();
+                putBase(out, numbers[spaceBase.getIndex()], spaceBase, name);
+                operation.seal(start);
+            } else {
+                // numbering it writes the base record
+                number(spaceBase);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void shipChanged(SpaceShip spaceship) {
+        FleetStore store = spaceship.getStore();
+        int slot = spaceship.getSlot();
+        lock.lock();
+        try {
+            Operation operation = begin();
+            int home = numberOfIndex(store.homeBase(slot));
+            int docking = numberOfIndex(store.dockingBase(slot));
+            ByteBuffer out = operation.reserve(SHIP_RECORD);
+            int start = out.position();
+            out.put(SHIP)
+                .putLong(store.id(slot))
+                .putInt(store.posX(slot))
+                .putInt(store.posY(slot))
+                .putDouble(store.fuel(slot))
+                .putInt(home)
+                .putInt(docking);
+            operation.seal(start);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void docked(SpaceBase spaceBase, SpaceShip spaceship) {
+        appendBerth(DOCKED, spaceBase, spaceship);
+    }
+
+    @Override
+    public void departed(SpaceBase spaceBase, SpaceShip spaceship) {
+        appendBerth(DEPARTED, spaceBase, spaceship);
+    }
+
+    /**
+     * Ends the operation of the current thread and appends its records, which
+     * lets them be committed. With {@link Durability#GROUP_COMMIT}, waits until
+     * they are on disk.
+     */
+    @Override
+    public void completed() {
+        Operation operation = this.operation.get();
+        if (!operation.open)
+            return;
+
+        lock.lock();
+        try {
+            operation.open = false;
+            // unless a checkpoint took it over meanwhile
+            if (operation.epoch == epoch) {
+                ByteBuffer records = operation.records.flip();
+                appended += records.remaining();
+                reserve(records.remaining()).put(records);
+            }
+            operation.clear();
+            pending.signal();
+            if (durability == Durability.GROUP_COMMIT) {
+                awaitDurable(appended);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void appendBerth(byte type, SpaceBase spaceBase, SpaceShip spaceship) {
+        lock.lock();
+        try {
+            Operation operation = begin();
+            int number = numberOfIndex(spaceBase.getIndex());
+            ByteBuffer out = operation.reserve(BERTH_RECORD);
+            int start = out.position();
+            out.put(type)
+                .putInt(number)
+                .putLong(spaceship.id());
+            operation.seal(start);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+
+    // Writing ---------------------------------------------------------------------
+
+    private boolean isNumbered(SpaceBase spaceBase) {
+        int index = spaceBase.getIndex();
+        return index < numbers.length && numbers[index] != FleetStore.NO_BASE;
+    }
+
+    private int numberOfIndex(int index) {
+        SpaceBase spaceBase = SpaceBase.withIndex(index);
+        // no base, or one which has been collected
+        return spaceBase != null ? number(spaceBase) : FleetStore.NO_BASE;
+    }
+
+    // numbers the base on first sight and appends its record
+    private int number(SpaceBase spaceBase) {
+        int index = spaceBase.getIndex();
+        if (index >= numbers.length) {
+            int oldLength = numbers.length;
+            numbers = Arrays.copyOf(numbers, Math.max(index + 1, 2 * oldLength));
+            Arrays.fill(numbers, oldLength, numbers.length, FleetStore.NO_BASE);
+        }
+        if (numbers[index] == FleetStore.NO_BASE) {
+            numbers[index] = bases.size();
+            bases.add(spaceBase);
+            byte[] name = nameOf(spaceBase);
+            ByteBuffer out = reserve(baseRecord(name));
+            int start = out.position();
+            putBase(out, numbers[index], spaceBase, name);
+            seal(out, start);
+        }
+        return numbers[index];
+    }
+
+    private static byte[] nameOf(SpaceBase spaceBase) {
+        return spaceBase.getName().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int baseRecord(byte[] name) {
+        return 1 + 3 * 4 + 2 + name.length + 4;
+    }
+
+    private static void putBase(ByteBuffer out, int number, SpaceBase spaceBase, byte[] name) {
+        out.put(BASE)
+            .putInt(number)
+            .putInt(spaceBase.getPosX())
+            .putInt(spaceBase.getPosY())
+            .putShort((short) name.length)
+            .put(name);
+    }
+
+
+    // Operations ------------------------------------------------------------------
+
+    // the records of one thread up to completed()
+    private static final class Operation {
+
+        private ByteBuffer records = newOperationBuffer(OPERATION_SIZE);
+        private final CRC32C crc = new CRC32C();
+        private boolean open;
+        // the checkpoint its records are from
+        private long epoch;
+
+        private ByteBuffer reserve(int length) {
+            records = grown(records, length);
+            return records;
+        }
+
+        private void seal(int start) {
+            Journal.seal(records, start, crc);
+        }
+
+        private void clear() {
+            // let go of the buffer of a large operation, e.g. a big batch
+            records = records.capacity() > BUFFER_SIZE ? newOperationBuffer(OPERATION_SIZE) : records.clear();
+        }
+    }
+
+    // opens the operation of the current thread, called with the lock held
+    private Operation begin() {
+        Operation operation = this.operation.get();
+        if (operation.epoch != epoch) {
+            // a checkpoint took over its records so far
+            operation.clear();
+            operation.epoch = epoch;
+        }
+        operation.open = true;
+        return operation;
+    }
+
+    private ByteBuffer reserve(int length) {
+        buffer = grown(buffer, length);
+        return buffer;
+    }
+
+    private void seal(ByteBuffer out, int start) {
+        seal(out, start, crc);
+        appended += out.position() - start;
+    }
+
+    private static ByteBuffer grown(ByteBuffer out, int length) {
+        if (out.remaining() >= length)
+            return out;
+        ByteBuffer larger = out.isDirect()
+            ? newBuffer(Math.max(2 * out.capacity(), out.position() + length))
+            : newOperationBuffer(Math.max(2 * out.capacity(), out.position() + length));
+        return larger.put(out.flip());
+    }
+
+    private static void seal(ByteBuffer out, int start, CRC32C crc) {
+        crc.reset();
+        crc.update(out.duplicate().position(start).limit(out.position()));
+        out.putInt((int) crc.getValue());
+    }
+
+    private void awaitDurable(long position) {
+        while (durable < position && failure == null && !closed) {
+            flushed.awaitUninterruptibly();
+        }
+        checkFailure();
+    }
+
+    private void checkFailure() {
+        if (failure != null)
+            throw new ApplicationException("journal: write failed", failure);
+    }
+
+    private void flushLoop() {
+        while (true) {
+            ByteBuffer toWrite;
+            long target;
+            lock.lock();
+            try {
+                while (buffer.position() == 0 && !closed) {
+                    pending.awaitUninterruptibly();
+                }
+                if (buffer.position() == 0)
+                    return;
+
+                // only whole operations are in the buffer
+                toWrite = buffer;
+                buffer = spare;
+                spare = toWrite;
+                target = appended;
+                writing = true;
+            } finally {
+                lock.unlock();
+            }
+
+            IOException error = null;
+            try {
+                toWrite.flip();
+                ByteBuffer[] records = { toWrite, commit.duplicate() };
+                while (records[1].hasRemaining()) {
+                    channel.write(records);
+                }
+                channel.force(false);
+            } catch (IOException e) {
+                error = e;
+            }
+            toWrite.clear();
+
+            lock.lock();
+            try {
+                writing = false;
+                if (error != null) {
+                    failure = error;
+                } else {
+                    durable = target;
+                }
+                flushed.signalAll();
+                if (error != null)
+                    return;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static ByteBuffer newBuffer(int capacity) {
+        return ByteBuffer.allocateDirect(capacity).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static ByteBuffer newOperationBuffer(int capacity) {
+        return ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+
+    // Closing ---------------------------------------------------------------------
+
+    /**
+     * Unregisters the journal, writes what is left of the completed
+     * operations and closes the file.
+     */
+    @Override
+    public void close() throws IOException {
+        FleetListeners.remove(this);
+        try {
+            lock.lock();
+            try {
+                awaitDurable(appended);
+            } finally {
+                closed = true;
+                pending.signal();
+                flushed.signalAll();
+                lock.unlock();
+            }
+        } finally {
+            try {
+                flusher.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+
+    // Reading ---------------------------------------------------------------------
+
+    // reads the records of a journal file one by one, stopping at the first bad one
+    private static final class Reader {
+
+        private final FileChannel channel;
+        private final ByteBuffer in = ByteBuffer.allocateDirect(READ_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        private final CRC32C crc = new CRC32C();
+        private long position;
+        private boolean eof;
+
+        private Reader(FileChannel channel) throws IOException {
+            this.channel = channel;
+            channel.position(0);
+            in.limit(0);
+        }
+
+        // returns the length of the file up to the end of the last commit record
+        private long committed() throws IOException {
+            long committed = 0L;
+            ByteBuffer record;
+            while ((record = next()) != null) {
+                if (record.get(0) == COMMIT) {
+                    committed = position;
+                }
+            }
+            return committed;
+        }
+
+        // returns the next record without its checksum, positioned at its type, or null
+        private ByteBuffer next() throws IOException {
+            if (!fill(1))
+                return null;
+
+            int length = switch (in.get(in.position())) {
+                case SHIP -> SHIP_RECORD;
+                case DOCKED, DEPARTED -> BERTH_RECORD;
+                case COMMIT -> COMMIT_RECORD;
+                case BASE -> fill(1 + 3 * 4 + 2) ? 1 + 3 * 4 + 2 + in.getShort(in.position() + 13) + 4 : -1;
+                default -> -1;
+            };
+            if (length < 0 || !fill(length))
+                return null;
+
+            ByteBuffer record = in.slice(in.position(), length - 4).order(ByteOrder.LITTLE_ENDIAN);
+            crc.reset();
+            crc.update(record.duplicate());
+            if ((int) crc.getValue() != in.getInt(in.position() + length - 4))
+                return null;
+
+            in.position(in.position() + length);
+            position += length;
+            return record;
+        }
+
+        // makes sure the next bytes are buffered, false at the end of the file
+        private boolean fill(int length) throws IOException {
+            if (length < 0 || length > in.capacity())
+                return false;
+            while (in.remaining() < length) {
+                if (eof)
+                    return false;
+                in.compact();
+                eof = channel.read(in) < 0;
+                in.flip();
+            }
+            return true;
+        }
+    }
+}
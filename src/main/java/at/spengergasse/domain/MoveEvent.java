@@ -0,0 +1,35 @@
+package at.spengergasse.domain;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+
+/**
+ * JFR event of {@link SpaceShip#moveTo}.
+ */
+@Name("at.spengergasse.Move")
+@Label("Move")
+@Category("SpaceShip")
+@Description("A spaceship moves to a position")
+@StackTrace(false)
+final class MoveEvent extends Event {
+
+    @Label("Ship Id")
+    long shipId;
+
+    @Label("Docking Base")
+    String dockingBase;
+
+    @Label("Distance")
+    double distance;
+
+    @Label("Fuel Delta")
+    double fuelDelta;
+
+    @Label("Status")
+    String status;
+}
@@ -0,0 +1,132 @@
+package at.spengergasse.domain;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+
+import static java.lang.foreign.ValueLayout.JAVA_DOUBLE;
+import static java.lang.foreign.ValueLayout.JAVA_INT;
+import static java.lang.foreign.ValueLayout.JAVA_LONG;
+
+
+/**
+ * {@link FleetStore} keeping its columns in native memory.
+ *
+ * Each page is one memory segment with the columns laid out one after the
+ * other: id, fuel (8 bytes each), posX, posY, home base, docking base (4 bytes each).
+ */
+class OffHeapFleetStore extends PagedFleetStore<MemorySegment> {
+
+    private static final long ID = 0;
+    private static final long FUEL = ID + 8L * PAGE_SIZE;
+    private static final long POS_X = FUEL + 8L * PAGE_SIZE;
+    private static final long POS_Y = POS_X + 4L * PAGE_SIZE;
+    private static final long HOME_BASE = POS_Y + 4L * PAGE_SIZE;
+    private static final long DOCKING_BASE = HOME_BASE + 4L * PAGE_SIZE;
+    private static final long PAGE_BYTES = DOCKING_BASE + 4L * PAGE_SIZE;
+
+    private final Arena arena = Arena.ofShared();
+
+    @Override
+    MemorySegment newPage() {
+        MemorySegment page = arena.allocate(PAGE_BYTES, 8);
+        // NO_BASE is -1, i.e. all bits set
+        page.asSlice(HOME_BASE, 8L * PAGE_SIZE).fill((byte) 0xFF);
+        return page;
+    }
+
+    @Override
+    void initialize(MemorySegment page, int offset, long id) {
+        page.set(JAVA_LONG, ID + 8L * offset, id);
+    }
+
+    @Override
+    public long id(int slot) {
+        return page(slot).get(JAVA_LONG, ID + 8L * (slot & PAGE_MASK));
+    }
+
+    @Override
+    public int posX(int slot) {
+        return page(slot).get(JAVA_INT, POS_X + 4L * (slot & PAGE_MASK));
+    }
+
+    @Override
+    public void setPosX(int slot, int posX) {
+        page(slot).set(JAVA_INT, POS_X + 4L * (slot & PAGE_MASK), posX);
+    }
+
+    @Override
+    public int posY(int slot) {
+        return page(slot).get(JAVA_INT, POS_Y + 4L * (slot & PAGE_MASK));
+    }
+
+    @Override
+    public void setPosY(int slot, int posY) {
+        page(slot).set(JAVA_INT, POS_Y + 4L * (slot & PAGE_MASK), posY);
+    }
+
+    @Override
+    public double fuel(int slot) {
+        return page(slot).get(JAVA_DOUBLE, FUEL + 8L * (slot & PAGE_MASK));
+    }
+
+    @Override
+    public void setFuel(int slot, double fuel) {
+        page(slot).set(JAVA_DOUBLE, FUEL + 8L * (slot & PAGE_MASK), fuel);
+    }
+
+    @Override
+    public int homeBase(int slot) {
+        return page(slot).get(JAVA_INT, HOME_BASE + 4L * (slot & PAGE_MASK));
+    }
+
+    @Override
+    public void setHomeBase(int slot, int baseIndex) {
+        page(slot).set(JAVA_INT, HOME_BASE + 4L * (slot & PAGE_MASK), baseIndex);
+    }
+
+    @Override
+    public int dockingBase(int slot) {
+        return page(slot).get(JAVA_INT, DOCKING_BASE + 4L * (slot & PAGE_MASK));
+    }
+
+    @Override
+    public void setDockingBase(int slot, int baseIndex) {
+        page(slot).set(JAVA_INT, DOCKING_BASE + 4L * (slot & PAGE_MASK), baseIndex);
+    }
+
+    @Override
+    void reachable(MemorySegment page, int count, int posX, int posY, long[] bitmap, int firstWord) {
+        int words = (count + 63) >>> 6;
+        for (int word = 0; word < words; word++) {
+            int first = word << 6;
+            int last = Math.min(first + 64, count);
+            long bits = 0L;
+            for (int i = first; i < last; i++) {
+                int x = page.get(JAVA_INT, POS_X + 4L * i);
+                int y = page.get(JAVA_INT, POS_Y + 4L * i);
+                double fuel = page.get(JAVA_DOUBLE, FUEL + 8L * i);
+                long reachable = canTravel(x, y, fuel, posX, posY) ? 1L : 0L;
+                bits |= reachable << i;
+            }
+            bitmap[firstWord + word] = bits;
+        }
+    }
+
+    @Override
+    void consumptions(MemorySegment page, int count, int posX, int posY, double[] consumptions, int offset) {
+        for (int i = 0; i < count; i++) {
+            int x = page.get(JAVA_INT, POS_X + 4L * i);
+            int y = page.get(JAVA_INT, POS_Y + 4L * i);
+            consumptions[offset + i] = consumption(x, y, posX, posY);
+        }
+    }
+
+    /**
+     * Frees the native memory; the store and all its spaceships must not be
+     * used afterwards.
+     */
+    @Override
+    public void close() {
+        arena.close();
+    }
+}
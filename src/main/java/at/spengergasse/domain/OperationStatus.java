@@ -0,0 +1,42 @@
+package at.spengergasse.domain;
+
+
+/**
+ * Outcome of the non-throwing variants of the spaceship and space base
+ * operations (tryDocking, tryMoveShipTo, tryMoveTo, tryRefuel).
+ *
+ * Expected failures are reported as a status instead of an exception, which
+ * saves building the exception and its stack trace on every failed call.
+ */
+public enum OperationStatus {
+
+    OK,
+    /** A required argument was null. */
+    NULL_ARGUMENT,
+    /** The spaceship is already docked at the target base. */
+    ALREADY_DOCKED,
+    /** No spaceship with the given id is docked at the base. */
+    UNKNOWN_SHIP,
+    /** The target position is negative. */
+    INVALID_POSITION,
+    /** The fuel does not last for the distance. */
+    LACK_OF_FUEL,
+    /** The refuel amount is negative. */
+    FUEL_AMOUNT_NEGATIVE,
+    /** The refuel amount would exceed the maximum fuel. */
+    FUEL_AMOUNT_TOO_HIGH,
+    /** The spaceship is on its way in a {@link Simulation}. */
+    IN_FLIGHT,
+    /** The spaceship is already waiting for a bay at a {@link DockingScheduler}. */
+    WAITING;
+
+    private static final OperationStatus[] VALUES = values();
+
+    public boolean isOk() {
+        return this == OK;
+    }
+
+    static OperationStatus ofOrdinal(int ordinal) {
+        return VALUES[ordinal];
+    }
+}
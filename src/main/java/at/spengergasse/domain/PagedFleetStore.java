@@ -0,0 +1,157 @@
+package at.spengergasse.domain;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static at.spengergasse.foundation.Assert.isTrue;
+
+
+/**
+ * Hands out slots and keeps the columns in fixed-size pages, so the store
+ * grows without ever copying (or moving) columns that are already in use.
+ */
+abstract class PagedFleetStore<P> implements FleetStore {
+
+    static final int PAGE_BITS = 14;
+    static final int PAGE_SIZE = 1 << PAGE_BITS;
+    static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    // slots handed out, and those of them ready to be read, a prefix of them
+    private final AtomicInteger reserved = new AtomicInteger();
+    private final AtomicInteger size = new AtomicInteger();
+    private final Object growLock = new Object();
+    private volatile Object[] pages = new Object[16];
+    private final ShipDirectory directory = new ShipDirectory(this);
+    // set once a reserved slot could not be published
+    private volatile boolean failed;
+
+    @Override
+    public int allocate(long id) {
+        isTrue(!failed, () -> "fleet store failed to allocate a slot before");
+        int slot = reserved.getAndIncrement();
+        isTrue(slot >= 0, () -> "fleet store is full");
+
+        boolean published = false;
+        try {
+            P page = pageOrNull(slot);
+            if (page == null) {
+                page = addPage(slot >>> PAGE_BITS);
+            }
+            initialize(page, slot & PAGE_MASK, id);
+            // publish in slot order, so readers up to size() only see initialised slots
+            while (size.get() != slot) {
+                isTrue(!failed, () -> "fleet store failed to allocate a slot before");
+                Thread.yield();
+            }
+            size.set(slot + 1);
+            published = true;
+        } finally {
+            if (!published) {
+                // the slots after this one can never be published, so the
+                // allocations waiting for it fail instead of waiting forever
+                failed = true;
+            }
+        }
+        return slot;
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    @Override
+    public ShipDirectory directory() {
+        return directory;
+    }
+
+    /**
+     * Creates an empty page of {@link #PAGE_SIZE} slots.
+     */
+    abstract P newPage();
+
+    abstract void initialize(P page, int offset, long id);
+
+    @Override
+    public long[][] reachable(int[] posX, int[] posY) {
+        int size = size();
+        long[][] bitmaps = new long[posX.length][(size + 63) >>> 6];
+        // page by page, so the columns of a page stay in cache for all positions
+        for (int first = 0; first < size; first += PAGE_SIZE) {
+            P page = page(first);
+            int count = Math.min(PAGE_SIZE, size - first);
+            for (int target = 0; target < posX.length; target++) {
+                reachable(page, count, posX[target], posY[target], bitmaps[target], first >>> 6);
+            }
+        }
+        return bitmaps;
+    }
+
+    @Override
+    public double[] consumptions(int posX, int posY) {
+        int size = size();
+        double[] consumptions = new double[size];
+        for (int first = 0; first < size; first += PAGE_SIZE) {
+            consumptions(page(first), Math.min(PAGE_SIZE, size - first), posX, posY, consumptions, first);
+        }
+        return consumptions;
+    }
+
+    /**
+     * Sets the bits of the first count slots of the page, starting at the
+     * given word of the bitmap. Pages are a multiple of 64 slots long.
+     */
+    abstract void reachable(P page, int count, int posX, int posY, long[] bitmap, int firstWord);
+
+    abstract void consumptions(P page, int count, int posX, int posY, double[] consumptions, int offset);
+
+    // the formulas of SpaceShip.distanceBetween and canTravel, for the kernels below
+    static boolean canTravel(int fromX, int fromY, double fuel, int toX, int toY) {
+        double dx = toX - fromX;
+        double dy = toY - fromY;
+        return fuel - Math.sqrt(dx * dx + dy * dy) * SpaceShip.FUEL_CONSUMPTION_PER_AU >= 0.0;
+    }
+
+    static double consumption(int fromX, int fromY, int toX, int toY) {
+        double dx = toX - fromX;
+        double dy = toY - fromY;
+        return Math.sqrt(dx * dx + dy * dy) * SpaceShip.FUEL_CONSUMPTION_PER_AU;
+    }
+
+    @SuppressWarnings("unchecked")
+    final P page(int slot) {
+        return (P) pages[slot >>> PAGE_BITS];
+    }
+
+    /**
+     * @return the number of pages which hold at least one slot
+     */
+    final int pageCount() {
+        return (size() + PAGE_MASK) >>> PAGE_BITS;
+    }
+
+    @SuppressWarnings("unchecked")
+    private P pageOrNull(int slot) {
+        Object[] current = pages;
+        int index = slot >>> PAGE_BITS;
+        return index < current.length ? (P) current[index] : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private P addPage(int index) {
+        synchronized (growLock) {
+            Object[] current = pages;
+            if (index >= current.length) {
+                current = Arrays.copyOf(current, Math.max(index + 1, current.length * 2));
+            } else if (current[index] != null) {
+                return (P) current[index];
+            } else {
+                current = current.clone();
+            }
+            P page = newPage();
+            current[index] = page;
+            pages = current;
+            return page;
+        }
+    }
+}
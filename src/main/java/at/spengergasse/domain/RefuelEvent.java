@@ -0,0 +1,32 @@
+package at.spengergasse.domain;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+
+/**
+ * JFR event of {@link SpaceShip#refuel}.
+ */
+@Name("at.spengergasse.Refuel")
+@Label("Refuel")
+@Category("SpaceShip")
+@Description("A spaceship is refuelled")
+@StackTrace(false)
+final class RefuelEvent extends Event {
+
+    @Label("Ship Id")
+    long shipId;
+
+    @Label("Docking Base")
+    String dockingBase;
+
+    @Label("Fuel Delta")
+    double fuelDelta;
+
+    @Label("Status")
+    String status;
+}
@@ -0,0 +1,23 @@
+package at.spengergasse.domain;
+
+import java.util.List;
+
+
+/**
+ * A route planned by {@link RoutePlanner}.
+ *
+ * @param stops    the bases to dock at one after the other, the last one is
+ *                 the destination
+ * @param distance the total distance
+ * @param fuel     the total fuel burned
+ */
+public record Route(List<SpaceBase> stops, double distance, double fuel) {
+
+    public Route {
+        stops = List.copyOf(stops);
+    }
+
+    public SpaceBase destination() {
+        return stops.get(stops.size() - 1);
+    }
+}
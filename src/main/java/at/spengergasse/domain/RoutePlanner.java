@@ -0,0 +1,116 @@
+package at.spengergasse.domain;
+
+import at.spengergasse.ApplicationException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+
+import static at.spengergasse.foundation.Assert.isNotNull;
+
+
+/**
+ * Plans the shortest route to a base for a spaceship which cannot get there
+ * in one jump, docking at bases on the way.
+ *
+ * Only the home base refills the tank (see {@link SpaceShip#setDockingBase}),
+ * so every stop is either on the way home or after having been there. Until
+ * the tank is refilled the ship has the fuel it started with minus what it
+ * burned, afterwards {@code MAX_FUEL} minus what it burned since. In both
+ * phases a shorter way to a base also leaves more fuel, which lets A* (with
+ * the straight distance to the destination as estimate) search bases and
+ * phases instead of every possible fuel level. The {@link SpaceBaseIndex}
+ * supplies the bases within range of each stop.
+ */
+public class RoutePlanner {
+
+    private static final int BEFORE_HOME = 0;
+    private static final int AFTER_HOME = 1;
+
+    private final SpaceBaseIndex index;
+
+    public RoutePlanner(SpaceBaseIndex index) throws ApplicationException {
+        this.index = isNotNull(index, "index");
+    }
+
+    /**
+     * @return the shortest route from the spaceship's position with its
+     *         current fuel, or empty if the destination is out of reach
+     */
+    public Optional<Route> plan(SpaceShip spaceship, SpaceBase destination) throws ApplicationException {
+        isNotNull(spaceship, "spaceship");
+        return plan(spaceship.getPosX(), spaceship.getPosY(), spaceship.getFuel(), spaceship.getHomeBase(), destination);
+    }
+
+    /**
+     * @param homeBase the base which refills the tank, may be null
+     * @return the shortest route from the position with the given fuel, or
+     *         empty if the destination is out of reach
+     */
+    public Optional<Route> plan(int posX, int posY, double fuel, SpaceBase homeBase, SpaceBase destination) throws ApplicationException {
+        isNotNull(destination, "destination");
+
+        PriorityQueue<Stop> queue = new PriorityQueue<>();
+        // shortest distance found so far, by base and phase
+        Map<SpaceBase, double[]> best = new IdentityHashMap<>();
+        Stop start = new Stop(null, null, BEFORE_HOME, posX, posY, 0.0, fuel, estimate(posX, posY, destination));
+        queue.add(start);
+
+        while (!queue.isEmpty()) {
+            Stop stop = queue.poll();
+            if (stop.spaceBase == destination)
+                return Optional.of(stop.toRoute());
+            if (stop.spaceBase != null && best.get(stop.spaceBase)[stop.phase] < stop.distance)
+                continue;
+
+            for (SpaceBase next : index.reachableFrom(stop.posX, stop.posY, stop.fuel)) {
+                if (next == stop.spaceBase)
+                    continue;
+
+                double hop = SpaceShip.distanceBetween(stop.posX, stop.posY, next.getPosX(), next.getPosY());
+                double distance = stop.distance + hop;
+                double fuelLeft = stop.fuel - SpaceShip.consumptionFor(hop);
+                int phase = stop.phase;
+                if (next == homeBase) {
+                    phase = AFTER_HOME;
+                    fuelLeft = SpaceShip.MAX_FUEL;
+                }
+
+                double[] distances = best.computeIfAbsent(next, b -> new double[] { Double.MAX_VALUE, Double.MAX_VALUE });
+                if (distance < distances[phase]) {
+                    distances[phase] = distance;
+                    queue.add(new Stop(stop, next, phase, next.getPosX(), next.getPosY(), distance, fuelLeft,
+                        distance + estimate(next.getPosX(), next.getPosY(), destination)));
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static double estimate(int posX, int posY, SpaceBase destination) {
+        return SpaceShip.distanceBetween(posX, posY, destination.getPosX(), destination.getPosY());
+    }
+
+    // a base reached on the way, linked to the stop before
+    private record Stop(Stop previous, SpaceBase spaceBase, int phase, int posX, int posY,
+                        double distance, double fuel, double priority) implements Comparable<Stop> {
+
+        @Override
+        public int compareTo(Stop other) {
+            return Double.compare(priority, other.priority);
+        }
+
+        private Route toRoute() {
+            List<SpaceBase> stops = new ArrayList<>();
+            for (Stop stop = this; stop.spaceBase != null; stop = stop.previous) {
+                stops.add(stop.spaceBase);
+            }
+            Collections.reverse(stops);
+            return new Route(stops, distance, SpaceShip.consumptionFor(distance));
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package at.spengergasse.domain;
+
+import at.spengergasse.ApplicationException;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedTransferQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import static at.spengergasse.foundation.Assert.isNotNull;
+import static at.spengergasse.foundation.Assert.isTrue;
+
+
+/**
+ * Runs a set of space bases on a fixed number of shards, each a thread of
+ * its own which owns its bases and changes them exclusively, one command
+ * from its mailbox after the other.
+ *
+ * Commands are posted to the shard of the base they act on and answered
+ * through a future, which completes on the shard thread (keep callbacks
+ * short). The bases keep their locks and the shards take them like any
+ * other caller; as only one thread changes a base, they are contended only
+ * by readers which lock (findShip, shipsByFuel, arrangeShipsByFuel). Whatever
+ * the bases share besides, such as the fleet store, the ship directory and
+ * the fleet listeners, the shards share as well.
+ *
+ * A transfer between bases of different shards is a two-phase exchange. The
+ * shard of the source base checks the ship and the fuel, lets it leave its
+ * berth and hands it over to the shard of the target base, which flies it
+ * there and docks it. If the target base has the ship docked already (or
+ * the flight fails), it is handed back and docks at the source base again.
+ * Meanwhile the ship is docked nowhere, like a ship in a {@link Simulation},
+ * so changing it touches no base (see {@link ShipDirectory}). Transfers
+ * within a shard are plain {@link SpaceBase#tryMoveShipTo} calls.
+ *
+ * Each phase is an operation of its own for a {@link Journal}, as it runs on
+ * a thread of its own: after a crash between the phases, replaying restores
+ * the ship docked nowhere, like a ship which was in flight in a simulation.
+ *
+ * While the shards run, the bases must only be changed through them;
+ * reading (snapshot, arrangeShips, findShip) is fine from any thread.
+ */
+public final class Shards implements AutoCloseable {
+
+    private final Shard[] shards;
+    private final Map<SpaceBase, Shard> owners;
+    // commands accepted and answered, to let close wait for the ones under way
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder answered = new LongAdder();
+    private volatile boolean closed;
+    private final AtomicBoolean stopping = new AtomicBoolean();
+
+    private Shards(int count, List<SpaceBase> bases) {
+        shards = new Shard[count];
+        for (int i = 0; i < count; i++) {
+            shards[i] = new Shard(i);
+        }
+        owners = new HashMap<>();
+        for (int i = 0; i < bases.size(); i++) {
+            owners.put(bases.get(i), shards[i % count]);
+        }
+    }
+
+    /**
+     * Starts the shards and deals the bases out to them in turn.
+     */
+    public static Shards start(int count, Collection<SpaceBase> bases) throws ApplicationException {
+        isTrue(count > 0, "count %d is not positive", count);
+        isNotNull(bases, "bases");
+
+        Shards started = new Shards(count, List.copyOf(bases));
+        for (Shard shard : started.shards) {
+            shard.thread.start();
+        }
+        return started;
+    }
+
+    public int count() {
+        return shards.length;
+    }
+
+    /**
+     * @return the number of the shard owning the base
+     */
+    public int shardOf(SpaceBase spaceBase) throws ApplicationException {
+        return owner(spaceBase).number;
+    }
+
+    private Shard owner(SpaceBase spaceBase) {
+        Shard shard = owners.get(isNotNull(spaceBase, "spaceBase"));
+        isTrue(shard != null, "spacebase %s is not run by these shards", spaceBase.getName());
+        return shard;
+    }
+
+
+    // Commands --------------------------------------------------------------------
+
+    public CompletableFuture<OperationStatus> docking(SpaceBase spaceBase, SpaceShip spaceship) throws ApplicationException {
+        return submit(spaceBase, base -> base.tryDocking(spaceship));
+    }
+
+    public CompletableFuture<Long> buildShip(SpaceBase spaceBase) throws ApplicationException {
+        return submit(spaceBase, SpaceBase::buildShip);
+    }
+
+    /**
+     * Like {@link SpaceBase#tryMoveShipTo}, as a two-phase exchange if the
+     * bases belong to different shards.
+     */
+    public CompletableFuture<OperationStatus> moveShipTo(SpaceBase from, long id, SpaceBase to) throws ApplicationException {
+        Shard source = owner(from);
+        Shard target = owner(to);
+        if (source == target)
+            return submit(from, base -> base.tryMoveShipTo(id, to));
+
+        CompletableFuture<OperationStatus> answer = accept();
+        source.post(() -> depart(from, id, to, source, target, answer), answer);
+        return answer;
+    }
+
+    /**
+     * Runs any other command on the shard owning the base.
+     */
+    public <T> CompletableFuture<T> submit(SpaceBase spaceBase, Function<SpaceBase, T> command) throws ApplicationException {
+        isNotNull(command, "command");
+        Shard shard = owner(spaceBase);
+        CompletableFuture<T> answer = accept();
+        shard.post(() -> answer(answer, command.apply(spaceBase)), answer);
+        return answer;
+    }
+
+    private <T> CompletableFuture<T> accept() {
+        submitted.increment();
+        if (closed) {
+            submitted.decrement();
+            // close may have been waiting for this one
+            stopIfDone();
+            throw new ApplicationException("shards are closed");
+        }
+        return new CompletableFuture<>();
+    }
+
+    private <T> void answer(CompletableFuture<T> answer, T result) {
+        answered.increment();
+        answer.complete(result);
+        if (closed) {
+            stopIfDone();
+        }
+    }
+
+    private <T> void fail(CompletableFuture<T> answer, RuntimeException e) {
+        answered.increment();
+        answer.completeExceptionally(e);
+        if (closed) {
+            stopIfDone();
+        }
+    }
+
+    // once closed and every command accepted is answered, nothing is posted any more
+    private void stopIfDone() {
+        if (answered.sum() == submitted.sum() && stopping.compareAndSet(false, true)) {
+            for (Shard shard : shards) {
+                shard.mailbox.offer(() -> shard.stopped = true);
+            }
+        }
+    }
+
+
+    // Transfers between shards ----------------------------------------------------
+
+    // phase one, on the shard of the source base
+    private void depart(SpaceBase from, long id, SpaceBase to, Shard source, Shard target,
+                        CompletableFuture<OperationStatus> answer) {
+        SpaceShip spaceship = from.findShip(id).orElse(null);
+        if (spaceship == null) {
+            answer(answer, OperationStatus.UNKNOWN_SHIP);
+            return;
+        }
+        double distance = SpaceShip.distanceBetween(spaceship.getPosX(), spaceship.getPosY(), to.getPosX(), to.getPosY());
+        if (!SpaceShip.canTravel(spaceship.getFuel(), distance)) {
+            answer(answer, OperationStatus.LACK_OF_FUEL);
+            return;
+        }
+        from.undock(spaceship);
+        try {
+            // in transit, so the flight on the other shard does not touch this base
+            spaceship.dockAt(null);
+        } catch (RuntimeException e) {
+            returned(spaceship, from, answer, null, e);
+            return;
+        } finally {
+            FleetListeners.completed();
+        }
+        target.post(() -> arrive(spaceship, from, to, source, answer), answer);
+    }
+
+    // phase two, on the shard of the target base
+    private void arrive(SpaceShip spaceship, SpaceBase from, SpaceBase to, Shard source,
+                        CompletableFuture<OperationStatus> answer) {
+        OperationStatus status;
+        RuntimeException failure = null;
+        try {
+            status = to.snapshot().isDocked(spaceship.id())
+                ? OperationStatus.ALREADY_DOCKED
+                : spaceship.move(to.getPosX(), to.getPosY());
+            if (status.isOk()) {
+                status = to.tryDocking(spaceship);
+            }
+        } catch (RuntimeException e) {
+            status = null;
+            failure = e;
+        } finally {
+            FleetListeners.completed();
+        }
+        if (status == OperationStatus.OK) {
+            answer(answer, status);
+        } else {
+            OperationStatus failed = status;
+            RuntimeException e = failure;
+            // back to where it came from
+            source.post(() -> returned(spaceship, from, answer, failed, e), answer);
+        }
+    }
+
+    // on the shard of the source base, after a failed transfer
+    private void returned(SpaceShip spaceship, SpaceBase from, CompletableFuture<OperationStatus> answer,
+                          OperationStatus status, RuntimeException failure) {
+        from.tryDocking(spaceship, false);
+        if (failure != null) {
+            fail(answer, failure);
+        } else {
+            answer(answer, status);
+        }
+    }
+
+
+    // Shards ----------------------------------------------------------------------
+
+    private final class Shard {
+
+        private final int number;
+        private final LinkedTransferQueue<Runnable> mailbox = new LinkedTransferQueue<>();
+        private final Thread thread;
+        // only read and written by the shard thread
+        private boolean stopped;
+
+        private Shard(int number) {
+            this.number = number;
+            this.thread = Thread.ofPlatform().daemon().name("spacebase-shard-" + number).unstarted(this::run);
+        }
+
+        private void post(Runnable command, CompletableFuture<?> answer) {
+            mailbox.offer(() -> {
+                try {
+                    command.run();
+                } catch (RuntimeException e) {
+                    fail(answer, e);
+                }
+            });
+        }
+
+        private void run() {
+            while (!stopped) {
+                try {
+                    mailbox.take().run();
+                } catch (InterruptedException e) {
+                    // only stopped through the mailbox
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops taking commands and waits for the shards to answer the ones under
+     * way, including both phases of transfers; the shards stop with the last
+     * answer.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        closed = true;
+        stopIfDone();
+        for (Shard shard : shards) {
+            shard.thread.join();
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package at.spengergasse.domain;
+
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * Where the docked spaceships of one {@link FleetStore} are, by id, across all
+ * space bases (see {@link FleetStore#directory()}).
+ *
+ * The directory only maps the id of every ship which has docked once to its
+ * slot; where the ship is comes from the docking base column of the store,
+ * which the bases keep current while they hold their lock. Lookups never lock
+ * and box nothing, and find a ship during a transfer at one of its bases. A
+ * ship docked at more than one base is listed at the base it docked at last,
+ * which is also its docking base.
+ */
+public final class ShipDirectory {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final int NO_SLOT = -1;
+    private static final int MIN_CAPACITY = 64;
+
+    private final FleetStore store;
+
+    // id -> slot, open addressing with linear probing; entries are only ever
+    // added, under the lock, and a full table is replaced instead of resized
+    private final Object lock = new Object();
+    private volatile Table table = new Table(MIN_CAPACITY);
+    private int count;
+
+    ShipDirectory(FleetStore store) {
+        this.store = store;
+    }
+
+    /**
+     * @return the base the ship is docked at, null if it is not docked anywhere
+     */
+    public SpaceBase baseOf(long id) {
+        int slot = slotOf(id);
+        if (slot == NO_SLOT)
+            return null;
+
+        // its docking base while it is in a berth there
+        SpaceBase spaceBase = SpaceBase.withIndex(store.dockingBase(slot));
+        while (spaceBase != null && !spaceBase.snapshot().isDocked(id)) {
+            // a transfer puts the ship into its new berths, then names the new
+            // base, then takes it out of the old berths: the ship is gone from
+            // the old base only after the new one is named, so look again
+            SpaceBase now = SpaceBase.withIndex(store.dockingBase(slot));
+            if (now == spaceBase)
+                return null;
+            spaceBase = now;
+        }
+        return spaceBase;
+    }
+
+    /**
+     * @return the spaceship with the given id, if it is docked anywhere
+     */
+    public Optional<SpaceShip> find(long id) {
+        SpaceBase spaceBase = baseOf(id);
+        return spaceBase != null ? spaceBase.findShip(id) : Optional.empty();
+    }
+
+    /**
+     * Docks the ship with the given id at the base, unless it is docked at
+     * another base; like {@link SpaceBase#tryDocking}, but checked under the
+     * locks, so the ship never ends up in the berths of two bases.
+     */
+    public OperationStatus tryDocking(long id, SpaceBase spaceBase) {
+        if (spaceBase == null)
+            return OperationStatus.NULL_ARGUMENT;
+
+        Optional<SpaceShip> spaceship = find(id);
+        if (spaceship.isEmpty())
+            return OperationStatus.UNKNOWN_SHIP;
+        return spaceBase.tryDockingUnlessElsewhere(spaceship.get(), true);
+    }
+
+    /**
+     * Moves the ship with the given id to the base, from wherever it is
+     * docked; like {@link SpaceBase#tryMoveShipTo}, but without knowing the
+     * base the ship is at.
+     */
+    public OperationStatus moveShipTo(long id, SpaceBase spaceBase) {
+        if (spaceBase == null)
+            return OperationStatus.NULL_ARGUMENT;
+
+        SpaceBase from = baseOf(id);
+        while (from != null) {
+            OperationStatus status = from.tryMoveShipTo(id, spaceBase);
+            if (status != OperationStatus.UNKNOWN_SHIP)
+                return status;
+            // moved on in the meantime, follow it
+            SpaceBase now = baseOf(id);
+            if (now == from)
+                break;
+            from = now;
+        }
+        return OperationStatus.UNKNOWN_SHIP;
+    }
+
+    // called by the base with its lock held
+    void docked(SpaceShip spaceship) {
+        long id = spaceship.id();
+        if (slotOf(id) != NO_SLOT)
+            return;
+
+        synchronized (lock) {
+            if (slotOf(id) != NO_SLOT)
+                return;
+            Table current = table;
+            if (2 * (count + 1) > current.capacity()) {
+                current = current.grown();
+                current.put(id, spaceship.slot());
+                // volatile write publishes the new table
+                table = current;
+            } else {
+                current.put(id, spaceship.slot());
+            }
+            count++;
+        }
+    }
+
+    private int slotOf(long id) {
+        return table.get(id);
+    }
+
+    private static final class Table {
+
+        private final AtomicLongArray ids;
+        private final int[] slots;
+        private final int mask;
+
+        private Table(int capacity) {
+            long[] empty = new long[capacity];
+            Arrays.fill(empty, EMPTY);
+            ids = new AtomicLongArray(empty);
+            slots = new int[capacity];
+            mask = capacity - 1;
+        }
+
+        private int capacity() {
+            return slots.length;
+        }
+
+        private int get(long id) {
+            for (int i = hash(id) & mask; ; i = (i + 1) & mask) {
+                // the volatile read of the id makes the slot written before it visible
+                long key = ids.get(i);
+                if (key == id)
+                    return slots[i];
+                if (key == EMPTY)
+                    return NO_SLOT;
+            }
+        }
+
+        private void put(long id, int slot) {
+            int i = hash(id) & mask;
+            while (ids.get(i) != EMPTY) {
+                i = (i + 1) & mask;
+            }
+            slots[i] = slot;
+            ids.set(i, id);
+        }
+
+        private Table grown() {
+            Table grown = new Table(2 * capacity());
+            for (int i = 0; i < capacity(); i++) {
+                long id = ids.get(i);
+                if (id != EMPTY) {
+                    grown.put(id, slots[i]);
+                }
+            }
+            return grown;
+        }
+
+        private static int hash(long id) {
+            return (int) ((id * 0x9E3779B97F4A7C15L) >>> 32);
+        }
+    }
+}
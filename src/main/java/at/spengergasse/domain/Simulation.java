@@ -0,0 +1,285 @@
+package at.spengergasse.domain;
+
+import at.spengergasse.ApplicationException;
+import at.spengergasse.foundation.LongOrderedMap;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import static at.spengergasse.foundation.Assert.isNotNull;
+import static at.spengergasse.foundation.Assert.isTrue;
+
+
+/**
+ * Flights which take time, in contrast to {@link SpaceShip#moveTo}.
+ *
+ * A launched spaceship leaves its berth and flies towards its destination at
+ * a fixed speed, burning fuel on the way as moveTo would. Every {@link #tick}
+ * advances all flights in parallel on a fork-join pool; ships which have
+ * arrived dock at their destination through {@link SpaceBase#docking}, one
+ * after the other in the order they were launched. The outcome does not
+ * depend on the number of threads.
+ *
+ * The flights are kept in parallel primitive arrays and the tasks of a tick
+ * are created at launch and reused, so a tick itself does not allocate
+ * (docking on arrival does).
+ *
+ * Not thread-safe: one thread launches and ticks. Ships in flight must not be
+ * moved by other means meanwhile. Listeners hear of a flight when it starts
+ * and when it docks, not of every tick.
+ */
+public class Simulation {
+
+    // flights advanced by one task
+    static final int CHUNK_SIZE = 4096;
+
+    private final double speed;
+    private final ForkJoinPool pool;
+    private final LongOrderedMap<Boolean> inFlight = new LongOrderedMap<>();
+
+    // the flights, in launch order
+    private int count;
+    private SpaceShip[] ships = new SpaceShip[0];
+    private FleetStore[] stores = new FleetStore[0];
+    private int[] slots = new int[0];
+    private SpaceBase[] destinations = new SpaceBase[0];
+    private double[] posX = new double[0];
+    private double[] posY = new double[0];
+    // unit vector towards the destination
+    private double[] directionX = new double[0];
+    private double[] directionY = new double[0];
+    private double[] remaining = new double[0];
+    private double[] distance = new double[0];
+    private double[] startFuel = new double[0];
+    private boolean[] arrived = new boolean[0];
+
+    private Chunk[] chunks = new Chunk[0];
+    private final Tick tick = new Tick();
+    private long ticks;
+
+    /**
+     * @param speed distance per tick
+     */
+    public Simulation(double speed) throws ApplicationException {
+        this(speed, ForkJoinPool.commonPool());
+    }
+
+    public Simulation(double speed, ForkJoinPool pool) throws ApplicationException {
+        isTrue(speed > 0.0, "speed %s is not positive", speed);
+        this.speed = speed;
+        this.pool = isNotNull(pool, "pool");
+    }
+
+
+    // Flights ---------------------------------------------------------------------
+
+    /**
+     * Starts a flight to the destination. The spaceship leaves its docking
+     * base right away; the fuel is checked for the whole distance up front.
+     */
+    public OperationStatus launch(SpaceShip spaceship, SpaceBase destination) {
+        if (spaceship == null || destination == null)
+            return OperationStatus.NULL_ARGUMENT;
+        if (inFlight.containsKey(spaceship.id()))
+            return OperationStatus.IN_FLIGHT;
+
+        int fromX = spaceship.getPosX();
+        int fromY = spaceship.getPosY();
+        double length = SpaceShip.distanceBetween(fromX, fromY, destination.getPosX(), destination.getPosY());
+        double fuel = spaceship.getFuel();
+        if (!SpaceShip.canTravel(fuel, length))
+            return OperationStatus.LACK_OF_FUEL;
+
+        SpaceBase dockingBase = spaceship.getDockingBase();
+        if (dockingBase != null) {
+            dockingBase.undock(spaceship);
+        }
+        spaceship.dockAt(null);
+        FleetListeners.completed();
+
+        ensureCapacity(count + 1);
+        int i = count++;
+        ships[i] = spaceship;
+        stores[i] = spaceship.getStore();
+        slots[i] = spaceship.getSlot();
+        destinations[i] = destination;
+        posX[i] = fromX;
+        posY[i] = fromY;
+        directionX[i] = length > 0.0 ? (destination.getPosX() - fromX) / length : 0.0;
+        directionY[i] = length > 0.0 ? (destination.getPosY() - fromY) / length : 0.0;
+        remaining[i] = length;
+        distance[i] = length;
+        startFuel[i] = fuel;
+        arrived[i] = false;
+        inFlight.put(spaceship.id(), Boolean.TRUE);
+        return OperationStatus.OK;
+    }
+
+    /**
+     * @return the number of ships in flight
+     */
+    public int inFlight() {
+        return count;
+    }
+
+    public boolean isInFlight(SpaceShip spaceship) {
+        return spaceship != null && inFlight.containsKey(spaceship.id());
+    }
+
+    public long getTicks() {
+        return ticks;
+    }
+
+
+    // Ticks -----------------------------------------------------------------------
+
+    /**
+     * Advances all flights by one tick and docks the ships which arrived.
+     *
+     * @return the number of ships which arrived
+     */
+    public int tick() {
+        ticks++;
+        if (count == 0)
+            return 0;
+
+        tick.chunkCount = (count + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        for (int c = 0; c < tick.chunkCount; c++) {
+            chunks[c].reinitialize();
+            chunks[c].from = c * CHUNK_SIZE;
+            chunks[c].to = Math.min(count, (c + 1) * CHUNK_SIZE);
+        }
+        tick.reinitialize();
+        pool.invoke(tick);
+
+        return dockArrivals();
+    }
+
+    private void advance(int from, int to) {
+        for (int i = from; i < to; i++) {
+            double step = Math.min(speed, remaining[i]);
+            posX[i] += directionX[i] * step;
+            posY[i] += directionY[i] * step;
+            remaining[i] -= step;
+
+            FleetStore store = stores[i];
+            int slot = slots[i];
+            store.setPosX(slot, (int) Math.round(posX[i]));
+            store.setPosY(slot, (int) Math.round(posY[i]));
+            store.setFuel(slot, store.fuel(slot) - step * SpaceShip.FUEL_CONSUMPTION_PER_AU);
+            arrived[i] = remaining[i] <= 0.0;
+        }
+    }
+
+    // in launch order, keeping the order of the flights still under way
+    private int dockArrivals() {
+        int kept = 0;
+        int arrivals = 0;
+        for (int i = 0; i < count; i++) {
+            if (arrived[i]) {
+                arrive(i);
+                arrivals++;
+            } else {
+                if (kept != i) {
+                    move(i, kept);
+                }
+                kept++;
+            }
+        }
+        // let go of the ships which are no longer in flight
+        Arrays.fill(ships, kept, count, null);
+        Arrays.fill(destinations, kept, count, null);
+        Arrays.fill(stores, kept, count, null);
+        count = kept;
+        return arrivals;
+    }
+
+    private void arrive(int i) {
+        SpaceShip spaceship = ships[i];
+        SpaceBase destination = destinations[i];
+        FleetStore store = stores[i];
+        int slot = slots[i];
+        // exactly where and with the fuel moveTo would have left it
+        store.setPosX(slot, destination.getPosX());
+        store.setPosY(slot, destination.getPosY());
+        store.setFuel(slot, startFuel[i] - SpaceShip.consumptionFor(distance[i]));
+        FleetListeners.shipChanged(spaceship);
+        FleetListeners.moved(spaceship);
+        inFlight.remove(spaceship.id());
+        destination.tryDocking(spaceship);
+    }
+
+    private void move(int from, int to) {
+        ships[to] = ships[from];
+        stores[to] = stores[from];
+        slots[to] = slots[from];
+        destinations[to] = destinations[from];
+        posX[to] = posX[from];
+        posY[to] = posY[from];
+        directionX[to] = directionX[from];
+        directionY[to] = directionY[from];
+        remaining[to] = remaining[from];
+        distance[to] = distance[from];
+        startFuel[to] = startFuel[from];
+        arrived[to] = false;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= ships.length)
+            return;
+
+        int length = Math.max(capacity, Math.max(16, ships.length * 2));
+        ships = Arrays.copyOf(ships, length);
+        stores = Arrays.copyOf(stores, length);
+        slots = Arrays.copyOf(slots, length);
+        destinations = Arrays.copyOf(destinations, length);
+        posX = Arrays.copyOf(posX, length);
+        posY = Arrays.copyOf(posY, length);
+        directionX = Arrays.copyOf(directionX, length);
+        directionY = Arrays.copyOf(directionY, length);
+        remaining = Arrays.copyOf(remaining, length);
+        distance = Arrays.copyOf(distance, length);
+        startFuel = Arrays.copyOf(startFuel, length);
+        arrived = Arrays.copyOf(arrived, length);
+
+        int chunkCount = (length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        if (chunkCount > chunks.length) {
+            int old = chunks.length;
+            chunks = Arrays.copyOf(chunks, chunkCount);
+            for (int c = old; c < chunkCount; c++) {
+                chunks[c] = new Chunk();
+            }
+        }
+    }
+
+
+    // Tasks -----------------------------------------------------------------------
+
+    private final class Tick extends RecursiveAction {
+
+        private int chunkCount;
+
+        @Override
+        protected void compute() {
+            for (int c = 1; c < chunkCount; c++) {
+                chunks[c].fork();
+            }
+            chunks[0].invoke();
+            for (int c = 1; c < chunkCount; c++) {
+                chunks[c].join();
+            }
+        }
+    }
+
+    private final class Chunk extends RecursiveAction {
+
+        private int from;
+        private int to;
+
+        @Override
+        protected void compute() {
+            advance(from, to);
+        }
+    }
+}
@@ -0,0 +1,392 @@
+package at.spengergasse.domain;
+
+import at.spengergasse.ApplicationException;
+import at.spengergasse.foundation.BlockIdAllocator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+import static at.spengergasse.foundation.Assert.isNotNull;
+import static at.spengergasse.foundation.Assert.isTrue;
+
+
+/**
+ * Binary snapshot of a fleet store and its space bases.
+ *
+ * Restoring a snapshot puts the ships back into their slots and berths as
+ * they were, without going through the constructors and {@link SpaceBase#docking}
+ * again. The file is written and read through memory mappings.
+ *
+ * <pre>
+ * header    48 bytes
+ *   int   magic "SBSN"
+ *   int   version
+ *   int   number of bases
+ *   int   number of ships
+ *   long  next free ship id
+ *   long  length of the base section
+ *   int   CRC32 of the base section
+ *   int   CRC32 of the ship section
+ *   int   CRC32 of the header up to here
+ *   int   reserved
+ * bases     per base: posX, posY, name length, name (UTF-8),
+ *           number of docked ships, their ship numbers in docking order;
+ *           padded to 8 bytes
+ * ships     columns of all ships: id (long), fuel (double), posX, posY,
+ *           home base number, docking base number (int, -1 for none)
+ * </pre>
+ *
+ * All numbers are little endian. Ship numbers are the slots in the saved
+ * store, base numbers the positions in the base section.
+ */
+public final class Snapshot {
+
+    static final int MAGIC = 0x5342534E;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 48;
+
+    private static final int HEADER_CRC_OFFSET = 40;
+    private static final int SHIP_SIZE = 2 * Long.BYTES + 4 * Integer.BYTES;
+    // the largest region mapped at once
+    private static final int CHUNK_SIZE = 1 << 30;
+
+    private Snapshot() {
+    }
+
+
+    // Writing ---------------------------------------------------------------------
+
+    /**
+     * Writes all ships of the store and the given bases to the file. Bases the
+     * ships refer to as home or docking base are included even if not given.
+     *
+     * The bases are locked while the snapshot is taken; ships which are not
+     * docked should not move meanwhile. The file is replaced only once the
+     * snapshot is complete.
+     *
+     * @return the bases in snapshot order: the given ones first, in their
+     *         order, then the ones only the ships refer to
+     */
+    public static List<SpaceBase> write(Path file, FleetStore store, Collection<SpaceBase> spaceBases) throws IOException, ApplicationException {
+        isNotNull(file, "file");
+        isNotNull(store, "store");
+        isNotNull(spaceBases, "spaceBases");
+
+        while (true) {
+            // a guess at the bases to lock, checked once they are
+            SpaceBase[] locked = SpaceBase.lockAll(included(store, spaceBases, store.size()));
+            try {
+                int shipCount = store.size();
+                Set<SpaceBase> included = included(store, spaceBases, shipCount);
+                // a ship allocated meanwhile refers to a base which is not locked, start over
+                if (!Arrays.asList(locked).containsAll(included))
+                    continue;
+
+                return write(file, store, included, shipCount);
+            } finally {
+                SpaceBase.unlockAll(locked);
+            }
+        }
+    }
+
+    /**
+     * Writes the snapshot of the first shipCount ships and the included bases,
+     * which the caller has locked.
+     */
+    static List<SpaceBase> write(Path file, FleetStore store, Set<SpaceBase> included, int shipCount) throws IOException, ApplicationException {
+        long maxId = -1;
+        for (int slot = 0; slot < shipCount; slot++) {
+            maxId = Math.max(maxId, store.id(slot));
+        }
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        List<SpaceBase> bases = new ArrayList<>(included);
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            int[] numbers = numbers(bases);
+            byte[] basesSection = basesSection(bases, store);
+            long basesLength = align(basesSection.length);
+
+            MappedByteBuffer buffer = map(channel, FileChannel.MapMode.READ_WRITE, HEADER_SIZE, basesLength);
+            buffer.put(basesSection);
+            CRC32 basesCrc = new CRC32();
+            basesCrc.update(buffer.rewind());
+            buffer.force();
+
+            CRC32 shipsCrc = new CRC32();
+            long offset = HEADER_SIZE + basesLength;
+            offset = writeColumn(channel, offset, shipCount, Long.BYTES, shipsCrc, (b, slot) -> b.putLong(store.id(slot)));
+            offset = writeColumn(channel, offset, shipCount, Double.BYTES, shipsCrc, (b, slot) -> b.putDouble(store.fuel(slot)));
+            offset = writeColumn(channel, offset, shipCount, Integer.BYTES, shipsCrc, (b, slot) -> b.putInt(store.posX(slot)));
+            offset = writeColumn(channel, offset, shipCount, Integer.BYTES, shipsCrc, (b, slot) -> b.putInt(store.posY(slot)));
+            offset = writeColumn(channel, offset, shipCount, Integer.BYTES, shipsCrc,
+                (b, slot) -> b.putInt(number(numbers, store.homeBase(slot))));
+            writeColumn(channel, offset, shipCount, Integer.BYTES, shipsCrc,
+                (b, slot) -> b.putInt(number(numbers, store.dockingBase(slot))));
+
+            long nextId = Math.max(SpaceShip.getIdAllocator().highWaterMark(), maxId + 1);
+            MappedByteBuffer header = map(channel, FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+            header.putInt(MAGIC)
+                .putInt(VERSION)
+                .putInt(bases.size())
+                .putInt(shipCount)
+                .putLong(nextId)
+                .putLong(basesLength)
+                .putInt((int) basesCrc.getValue())
+                .putInt((int) shipsCrc.getValue());
+            CRC32 headerCrc = new CRC32();
+            headerCrc.update(header.duplicate().position(0).limit(HEADER_CRC_OFFSET));
+            header.putInt((int) headerCrc.getValue())
+                .putInt(0);
+            header.force();
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return bases;
+    }
+
+    // the given bases and those the first shipCount ships refer to, in snapshot order
+    static Set<SpaceBase> included(FleetStore store, Collection<SpaceBase> spaceBases, int shipCount) {
+        Set<SpaceBase> included = new LinkedHashSet<>(spaceBases);
+        for (int slot = 0; slot < shipCount; slot++) {
+            include(included, store.homeBase(slot));
+            include(included, store.dockingBase(slot));
+        }
+        return included;
+    }
+
+    private static void include(Set<SpaceBase> included, int index) {
+        SpaceBase spaceBase = SpaceBase.withIndex(index);
+        // not if it has been collected
+        if (spaceBase != null) {
+            included.add(spaceBase);
+        }
+    }
+
+    // base number by base index, -1 for bases not in the snapshot
+    private static int[] numbers(List<SpaceBase> bases) {
+        int maxIndex = -1;
+        for (SpaceBase spaceBase : bases) {
+            maxIndex = Math.max(maxIndex, spaceBase.getIndex());
+        }
+        int[] numbers = new int[maxIndex + 1];
+        Arrays.fill(numbers, FleetStore.NO_BASE);
+        for (int i = 0; i < bases.size(); i++) {
+            numbers[bases.get(i).getIndex()] = i;
+        }
+        return numbers;
+    }
+
+    private static int number(int[] numbers, int index) {
+        return index != FleetStore.NO_BASE && index < numbers.length ? numbers[index] : FleetStore.NO_BASE;
+    }
+
+    private static byte[] basesSection(List<SpaceBase> bases, FleetStore store) throws ApplicationException {
+        List<byte[]> names = new ArrayList<>(bases.size());
+        List<List<SpaceShip>> docked = new ArrayList<>(bases.size());
+        long length = 0;
+        for (SpaceBase spaceBase : bases) {
+            byte[] name = spaceBase.getName().getBytes(StandardCharsets.UTF_8);
+            List<SpaceShip> ships = spaceBase.dockedShips();
+            names.add(name);
+            docked.add(ships);
+            length += 4L * Integer.BYTES + name.length + (long) ships.size() * Integer.BYTES;
+        }
+        isTrue(length <= CHUNK_SIZE, "snapshot: base section of %d bytes is too large", length);
+
+        ByteBuffer section = ByteBuffer.allocate((int) length).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < bases.size(); i++) {
+            SpaceBase spaceBase = bases.get(i);
+            section.putInt(spaceBase.getPosX())
+                .putInt(spaceBase.getPosY())
+                .putInt(names.get(i).length)
+                .put(names.get(i))
+                .putInt(docked.get(i).size());
+            for (SpaceShip spaceship : docked.get(i)) {
+                isTrue(spaceship.getStore() == store,
+                    "snapshot: spaceship id %d at spacebase %s is not in the store", spaceship.id(), spaceBase.getName());
+                section.putInt(spaceship.getSlot());
+            }
+        }
+        return section.array();
+    }
+
+    @FunctionalInterface
+    private interface ColumnWriter {
+        void put(ByteBuffer buffer, int slot);
+    }
+
+    private static long writeColumn(FileChannel channel, long offset, int count, int width, CRC32 crc, ColumnWriter writer) throws IOException {
+        int perChunk = CHUNK_SIZE / width;
+        for (int first = 0; first < count; first += perChunk) {
+            int n = Math.min(perChunk, count - first);
+            MappedByteBuffer buffer = map(channel, FileChannel.MapMode.READ_WRITE, offset + (long) first * width, (long) n * width);
+            for (int slot = first; slot < first + n; slot++) {
+                writer.put(buffer, slot);
+            }
+            crc.update(buffer.rewind());
+            buffer.force();
+        }
+        return offset + (long) count * width;
+    }
+
+
+    // Reading ---------------------------------------------------------------------
+
+    /**
+     * Restores a snapshot: creates its bases, allocates its ships in the given
+     * store with their original ids and docks them where they were docked.
+     * The id allocator of {@link SpaceShip} is moved past the saved ids if
+     * needed, so new ships never reuse one. Meant to run at startup, before
+     * other threads create spaceships.
+     *
+     * @return the restored bases in snapshot order
+     */
+    public static List<SpaceBase> read(Path file, FleetStore store) throws IOException, ApplicationException {
+        isNotNull(file, "file");
+        isNotNull(store, "store");
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            isTrue(size >= HEADER_SIZE, "snapshot: file of %d bytes has no header", size);
+
+            MappedByteBuffer header = map(channel, FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            int magic = header.getInt();
+            int version = header.getInt();
+            int baseCount = header.getInt();
+            int shipCount = header.getInt();
+            long nextId = header.getLong();
+            long basesLength = header.getLong();
+            int basesCrc = header.getInt();
+            int shipsCrc = header.getInt();
+            int headerCrc = header.getInt();
+
+            isTrue(magic == MAGIC, "snapshot: %s is no snapshot", file);
+            isTrue(version == VERSION, "snapshot: unsupported version %d", version);
+            isTrue(checksum(header.duplicate().position(0).limit(HEADER_CRC_OFFSET)) == headerCrc, "snapshot: header is corrupt");
+            isTrue(baseCount >= 0 && shipCount >= 0 && basesLength >= 0 && basesLength <= CHUNK_SIZE,
+                "snapshot: header is corrupt");
+            long shipsOffset = HEADER_SIZE + basesLength;
+            long expectedSize = shipsOffset + (long) shipCount * SHIP_SIZE;
+            isTrue(size == expectedSize, "snapshot: file has %d bytes instead of %d", size, expectedSize);
+
+            MappedByteBuffer bases = map(channel, FileChannel.MapMode.READ_ONLY, HEADER_SIZE, basesLength);
+            isTrue(checksum(bases) == basesCrc, "snapshot: base section is corrupt");
+            isTrue(shipsChecksum(channel, shipsOffset, (long) shipCount * SHIP_SIZE) == shipsCrc,
+                "snapshot: ship section is corrupt");
+
+            // ids first, they decide the slots
+            int[] slots = new int[shipCount];
+            long offset = readColumn(channel, shipsOffset, shipCount, Long.BYTES,
+                (b, i) -> slots[i] = store.allocate(b.getLong()));
+
+            List<SpaceBase> restored = new ArrayList<>(baseCount);
+            List<int[]> docked = new ArrayList<>(baseCount);
+            for (int i = 0; i < baseCount; i++) {
+                int posX = bases.getInt();
+                int posY = bases.getInt();
+                byte[] name = new byte[bases.getInt()];
+                bases.get(name);
+                int[] ships = new int[bases.getInt()];
+                for (int j = 0; j < ships.length; j++) {
+                    ships[j] = bases.getInt();
+                    isTrue(ships[j] >= 0 && ships[j] < shipCount, "snapshot: unknown ship number %d", ships[j]);
+                }
+                restored.add(new SpaceBase(new String(name, StandardCharsets.UTF_8), posX, posY));
+                docked.add(ships);
+            }
+            int[] indexes = new int[baseCount];
+            for (int i = 0; i < baseCount; i++) {
+                indexes[i] = restored.get(i).getIndex();
+            }
+
+            offset = readColumn(channel, offset, shipCount, Double.BYTES, (b, i) -> store.setFuel(slots[i], b.getDouble()));
+            offset = readColumn(channel, offset, shipCount, Integer.BYTES, (b, i) -> store.setPosX(slots[i], b.getInt()));
+            offset = readColumn(channel, offset, shipCount, Integer.BYTES, (b, i) -> store.setPosY(slots[i], b.getInt()));
+            offset = readColumn(channel, offset, shipCount, Integer.BYTES,
+                (b, i) -> store.setHomeBase(slots[i], index(indexes, b.getInt())));
+            readColumn(channel, offset, shipCount, Integer.BYTES,
+                (b, i) -> store.setDockingBase(slots[i], index(indexes, b.getInt())));
+
+            for (int i = 0; i < baseCount; i++) {
+                int[] ships = docked.get(i);
+                List<SpaceShip> spaceships = new ArrayList<>(ships.length);
+                for (int ship : ships) {
+                    spaceships.add(new SpaceShip(store, slots[ship]));
+                }
+                restored.get(i).restoreShips(spaceships);
+            }
+
+            if (SpaceShip.getIdAllocator().highWaterMark() < nextId) {
+                SpaceShip.setIdAllocator(new BlockIdAllocator(nextId));
+            }
+            return restored;
+        }
+    }
+
+    private static int index(int[] indexes, int number) throws ApplicationException {
+        if (number == FleetStore.NO_BASE)
+            return FleetStore.NO_BASE;
+
+        isTrue(number >= 0 && number < indexes.length, "snapshot: unknown base number %d", number);
+        return indexes[number];
+    }
+
+    @FunctionalInterface
+    private interface ColumnReader {
+        void get(ByteBuffer buffer, int ship);
+    }
+
+    private static long readColumn(FileChannel channel, long offset, int count, int width, ColumnReader reader) throws IOException {
+        int perChunk = CHUNK_SIZE / width;
+        for (int first = 0; first < count; first += perChunk) {
+            int n = Math.min(perChunk, count - first);
+            MappedByteBuffer buffer = map(channel, FileChannel.MapMode.READ_ONLY, offset + (long) first * width, (long) n * width);
+            for (int ship = first; ship < first + n; ship++) {
+                reader.get(buffer, ship);
+            }
+        }
+        return offset + (long) count * width;
+    }
+
+    private static int shipsChecksum(FileChannel channel, long offset, long length) throws IOException {
+        CRC32 crc = new CRC32();
+        for (long done = 0; done < length; done += CHUNK_SIZE) {
+            crc.update(map(channel, FileChannel.MapMode.READ_ONLY, offset + done, Math.min(CHUNK_SIZE, length - done)));
+        }
+        return (int) crc.getValue();
+    }
+
+    private static int checksum(ByteBuffer buffer) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate());
+        return (int) crc.getValue();
+    }
+
+
+    // Helpers ---------------------------------------------------------------------
+
+    private static MappedByteBuffer map(FileChannel channel, FileChannel.MapMode mode, long offset, long length) throws IOException {
+        MappedByteBuffer buffer = channel.map(mode, offset, length);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return buffer;
+    }
+
+    private static long align(long length) {
+        return (length + Long.BYTES - 1) & -Long.BYTES;
+    }
+}
@@ -1,11 +1,23 @@
 package at.spengergasse.domain;
 
 import at.spengergasse.ApplicationException;
-
-import java.util.Comparator;
+import at.spengergasse.foundation.LongOrderedMap;
+import at.spengergasse.foundation.PersistentLongMap;
+import at.spengergasse.metrics.Metrics;
+import at.spengergasse.metrics.Operation;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
@@ -15,26 +27,72 @@ import static java.lang.String.format;
 import static java.lang.StringTemplate.STR;
 
 
+/**
+ * A space base with its docked ships.
+ *
+ * Space bases are safe to use from several threads. Each base guards its ships
+ * with its own lock; operations involving two bases (moveShipTo) take both
+ * locks in a global order, so transfers are atomic and cannot deadlock.
+ *
+ * Every base gets a unique index when it is created. Spaceships refer to their
+ * home and docking base by that index (see {@link FleetStore}), and the index
+ * doubles as the global lock order. The registry of indexes only holds the
+ * bases weakly: a base nothing else refers to any more is collected. A
+ * spaceship keeps its home and docking base, so a base lives at least as long
+ * as any ship which refers to it.
+ *
+ * Docked ships are listed in the order of their ids everywhere: by
+ * arrangeShips(), shipsById(), toString() and the views and renderers of a
+ * base. It is the order arrangeShips() has always returned, and the one
+ * toString() showed once arrangeShips() had sorted the ship list in place.
+ */
 public class SpaceBase {
 
+    // all bases created, by index, as long as they are in use
+    private static final Object registryLock = new Object();
+    private static final ReferenceQueue<SpaceBase> collected = new ReferenceQueue<>();
+    private static volatile Registration[] registry = new Registration[64];
+    private static int registered;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final int index;
+
     private String name;
     private int posX;
     private int posY;
 
-    private List<SpaceShip> shipList;
+    // docked ships keyed by id, iterates in docking order
+    private LongOrderedMap<Berth> ships;
+
+    // the docked ships ordered by fuel, kept up to date on every change; by id
+    // they are ordered in the view
+    private final TreeSet<Berth> shipsByFuel = new TreeSet<>();
+
+    // the current version for readers which do not take the lock, replaced on every change
+    private volatile SpaceBaseView view;
 
     public SpaceBase() {
         name = "International Space Station";
         posX = 0;
         posY = 0;
-        shipList = new LinkedList<>();
+        ships = new LongOrderedMap<>();
+        view = new SpaceBaseView(0L, name, posX, posY, PersistentLongMap.empty());
+        // once the base is complete
+        index = register(this);
+        FleetListeners.baseChanged(this);
+        FleetListeners.completed();
     }
 
     public SpaceBase(String name, int posX, int posY) throws ApplicationException {
         setName(name);
         setPosX(posX);
         setPosY(posY);
-        shipList = new LinkedList<>();
+        ships = new LongOrderedMap<>();
+        view = new SpaceBaseView(0L, name, posX, posY, PersistentLongMap.empty());
+        // once the base is complete
+        index = register(this);
+        FleetListeners.baseChanged(this);
+        FleetListeners.completed();
     }
 
     public int getPosX() {
@@ -54,7 +112,7 @@ public class SpaceBase {
     }
 
     private void setPosY(int posY) throws ApplicationException {
-        if (posX >= 0) {
+        if (posY >= 0) {
             this.posY = posY;
         } else {
             throw new ApplicationException("setPosY: posY-value is not valid (" + posY + ")");
@@ -80,12 +138,65 @@ public class SpaceBase {
 //
     public void setName(String name) throws ApplicationException {
        this.name = hasMaxLength(name, 255, "name");
+       // the constructors report the new base themselves
+       if (ships != null) {
+           lock.lock();
+           try {
+               view = view.with(this.name);
+           } finally {
+               lock.unlock();
+           }
+           FleetListeners.baseChanged(this);
+           FleetListeners.completed();
+       }
     }
 
     public String getName() {
         return name;
     }
 
+    int getIndex() {
+        return index;
+    }
+
+    /**
+     * @return the base with the given index, null if there is none (any more)
+     */
+    static SpaceBase withIndex(int index) {
+        if (index == FleetStore.NO_BASE)
+            return null;
+        Registration registration = registry[index];
+        return registration != null ? registration.get() : null;
+    }
+
+    private static int register(SpaceBase spaceBase) {
+        synchronized (registryLock) {
+            // let go of the entries of collected bases; their indexes are not reused
+            Reference<? extends SpaceBase> gone;
+            while ((gone = collected.poll()) != null) {
+                registry[((Registration) gone).index] = null;
+            }
+            Registration[] current = registry;
+            if (registered == current.length) {
+                current = Arrays.copyOf(current, registered * 2);
+            }
+            current[registered] = new Registration(spaceBase, registered);
+            // volatile write publishes the new entry
+            registry = current;
+            return registered++;
+        }
+    }
+
+    private static final class Registration extends WeakReference<SpaceBase> {
+
+        private final int index;
+
+        private Registration(SpaceBase spaceBase, int index) {
+            super(spaceBase, collected);
+            this.index = index;
+        }
+    }
+
 
 // ORIGINAL VERSION `docking`
 //
@@ -108,81 +219,540 @@ public class SpaceBase {
     public boolean docking(SpaceShip spaceship) throws ApplicationException {
         isNotNull(spaceship, "spaceship");
 
-        isTrue(!shipList.contains(spaceship), () ->
-            STR."spaceship id \{spaceship.getId()} already docked at " +
-                STR."this spacebase \{spaceship.getDockingBase().getName()}");
+        isTrue(tryDocking(spaceship).isOk(),
+            "spaceship id %d already docked at this spacebase %s", spaceship.id(), name);
+        return true;
+    }
 
-        spaceship.setDockingBase(this);
-        return shipList.add(spaceship);
+    /**
+     * Like {@link #docking}, but reports a failure as status instead of throwing.
+     */
+    public OperationStatus tryDocking(SpaceShip spaceship) {
+        return tryDocking(spaceship, true);
+    }
 
+    // without refuelAtHome for a DockingScheduler, which refuels at its pumps
+    OperationStatus tryDocking(SpaceShip spaceship, boolean refuelAtHome) {
+        return tryDocking(spaceship, refuelAtHome, false);
     }
 
-    public SpaceShip moveShipTo(Long id, SpaceBase spaceBase) {
-        if (id != null && spaceBase != null) {
-            SpaceShip spaceshipToMove = shipWithId(id);
-            if (spaceshipToMove != null) {
-                try {
-                    spaceshipToMove.moveTo(spaceBase.getPosX(), spaceBase.getPosY());
-                } catch (ApplicationException e) {
-                     return null;
-                }
-                try {
-                    spaceBase.docking(spaceshipToMove);
-                } catch (ApplicationException e) {
-                     return null;
+    /**
+     * Like {@link #tryDocking(SpaceShip, boolean)}, but fails with
+     * ALREADY_DOCKED as well if the ship is docked at another base. The check
+     * and the docking hold the lock of the base the ship was docked at last, or
+     * else of its home base, together with this one, so two bases docking the
+     * same ship this way never both succeed.
+     */
+    OperationStatus tryDockingUnlessElsewhere(SpaceShip spaceship, boolean refuelAtHome) {
+        return tryDocking(spaceship, refuelAtHome, true);
+    }
+
+    private OperationStatus tryDocking(SpaceShip spaceship, boolean refuelAtHome, boolean unlessElsewhere) {
+        long start = Metrics.start();
+        DockingEvent event = new DockingEvent();
+        event.begin();
+        OperationStatus status = unlessElsewhere
+            ? dockingStatusUnlessElsewhere(spaceship, refuelAtHome)
+            : dockingStatus(spaceship, refuelAtHome);
+        FleetListeners.completed();
+        Metrics.record(Operation.DOCKING, index, name, start, status.isOk());
+        if (event.shouldCommit()) {
+            event.shipId = spaceship != null ? spaceship.id() : BatchResult.NO_ID;
+            event.base = name;
+            event.status = status.name();
+            event.commit();
+        }
+        return status;
+    }
+
+    private OperationStatus dockingStatus(SpaceShip spaceship, boolean refuelAtHome) {
+        if (spaceship == null)
+            return OperationStatus.NULL_ARGUMENT;
+
+        lock.lock();
+        try {
+            if (ships.containsKey(spaceship.id()))
+                return OperationStatus.ALREADY_DOCKED;
+
+            dock(spaceship, refuelAtHome);
+            return OperationStatus.OK;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private OperationStatus dockingStatusUnlessElsewhere(SpaceShip spaceship, boolean refuelAtHome) {
+        if (spaceship == null)
+            return OperationStatus.NULL_ARGUMENT;
+
+        while (true) {
+            SpaceBase guard = guardOf(spaceship);
+            lockWith(guard);
+            try {
+                // docked or undocked somewhere else before the locks were taken
+                if (guardOf(spaceship) != guard)
+                    continue;
+                if (ships.containsKey(spaceship.id())
+                    || (guard != this && guard.ships.containsKey(spaceship.id())))
+                    return OperationStatus.ALREADY_DOCKED;
+
+                dock(spaceship, refuelAtHome);
+                return OperationStatus.OK;
+            } finally {
+                unlockWith(guard);
+            }
+        }
+    }
+
+    // the base whose lock covers docking the ship anywhere: the one it docked at last, else its home base
+    private SpaceBase guardOf(SpaceShip spaceship) {
+        SpaceBase guard = spaceship.getDockingBase();
+        if (guard == null) {
+            guard = spaceship.getHomeBase();
+        }
+        return guard != null ? guard : this;
+    }
+
+    /**
+     * Docks all given spaceships, taking the lock and growing the ship
+     * registry only once. A null or already docked spaceship fails on its own
+     * without affecting the others.
+     */
+    public BatchResult dockAll(Collection<SpaceShip> spaceships) throws ApplicationException {
+        isNotNull(spaceships, "spaceships");
+
+        BatchResult result = new BatchResult(spaceships.size());
+        lock.lock();
+        try {
+            ships.ensureCapacity(ships.size() + spaceships.size());
+            int item = 0;
+            for (SpaceShip spaceship : spaceships) {
+                long start = Metrics.start();
+                if (spaceship == null) {
+                    result.failed(item, BatchResult.NO_ID, OperationStatus.NULL_ARGUMENT);
+                } else if (ships.containsKey(spaceship.id())) {
+                    result.failed(item, spaceship.id(), OperationStatus.ALREADY_DOCKED);
+                } else {
+                    dock(spaceship);
+                    result.succeeded(item, spaceship.id());
                 }
-                shipList.remove(spaceshipToMove);
-                return spaceshipToMove;
-            } else {
-                return null;
+                Metrics.record(Operation.DOCKING, index, name, start, result.succeeded(item++));
             }
+        } finally {
+            lock.unlock();
+        }
+        FleetListeners.completed();
+        return result;
+    }
+
+    public SpaceShip moveShipTo(Long id, SpaceBase spaceBase) {
+        if (id != null && spaceBase != null) {
+            // the moved ship, resolved while both locks are held
+            SpaceShip[] moved = new SpaceShip[1];
+            return moveShip(id, spaceBase, moved).isOk() ? moved[0] : null;
         } else {
             return null;
         }
     }
 
+    /**
+     * Like {@link #moveShipTo}, but tells why a transfer failed.
+     */
+    public OperationStatus tryMoveShipTo(Long id, SpaceBase spaceBase) {
+        if (id == null || spaceBase == null)
+            return OperationStatus.NULL_ARGUMENT;
+
+        return moveShip(id, spaceBase, null);
+    }
+
+    // moved, if given, gets the ship docked at the target base
+    private OperationStatus moveShip(long id, SpaceBase spaceBase, SpaceShip[] moved) {
+        long start = Metrics.start();
+        TransferEvent event = new TransferEvent();
+        event.begin();
+        OperationStatus status;
+        lockWith(spaceBase);
+        try {
+            status = transfer(id, spaceBase, event);
+            if (moved != null && status.isOk()) {
+                moved[0] = shipWithId(spaceBase, id);
+            }
+        } finally {
+            unlockWith(spaceBase);
+        }
+        FleetListeners.completed();
+        Metrics.record(Operation.MOVE_SHIP_TO, index, name, start, status.isOk());
+        commit(event, id, spaceBase, status);
+        return status;
+    }
+
+    /**
+     * Moves all ships with the given ids to the other base, taking the locks
+     * of both bases only once. Each id fails on its own (unknown here, lack
+     * of fuel, already docked there) like {@link #moveShipTo} does.
+     */
+    public BatchResult moveShipsTo(Collection<Long> ids, SpaceBase spaceBase) throws ApplicationException {
+        isNotNull(ids, "ids");
+        isNotNull(spaceBase, "spaceBase");
+
+        BatchResult result = new BatchResult(ids.size());
+        lockWith(spaceBase);
+        try {
+            spaceBase.ships.ensureCapacity(spaceBase.ships.size() + ids.size());
+            int item = 0;
+            for (Long id : ids) {
+                if (id == null) {
+                    result.failed(item++, BatchResult.NO_ID, OperationStatus.NULL_ARGUMENT);
+                } else {
+                    long start = Metrics.start();
+                    TransferEvent event = new TransferEvent();
+                    event.begin();
+                    OperationStatus status = transfer(id, spaceBase, event);
+                    Metrics.record(Operation.MOVE_SHIP_TO, index, name, start, status.isOk());
+                    commit(event, id, spaceBase, status);
+                    if (status.isOk()) {
+                        result.succeeded(item++, id);
+                    } else {
+                        result.failed(item++, id, status);
+                    }
+                }
+            }
+        } finally {
+            unlockWith(spaceBase);
+        }
+        FleetListeners.completed();
+        return result;
+    }
+
+    // moves the ship to the other base while both locks are held
+    private OperationStatus transfer(long id, SpaceBase spaceBase, TransferEvent event) {
+        SpaceShip spaceshipToMove = shipWithId(id);
+        if (spaceshipToMove == null)
+            return OperationStatus.UNKNOWN_SHIP;
+        // check the target first, so a failed transfer leaves the ship untouched
+        if (spaceBase.ships.containsKey(id))
+            return OperationStatus.ALREADY_DOCKED;
+
+        double fuel = spaceshipToMove.getFuel();
+        if (event.isEnabled()) {
+            event.distance = SpaceShip.distanceBetween(spaceshipToMove.getPosX(), spaceshipToMove.getPosY(),
+                spaceBase.getPosX(), spaceBase.getPosY());
+        }
+        OperationStatus status = spaceshipToMove.move(spaceBase.getPosX(), spaceBase.getPosY());
+        if (status.isOk()) {
+            spaceBase.dock(spaceshipToMove);
+            removeShip(spaceshipToMove);
+            FleetListeners.departed(this, spaceshipToMove);
+        }
+        if (event.isEnabled()) {
+            // after docking, which refills the tank at the home base
+            event.fuelDelta = spaceshipToMove.getFuel() - fuel;
+        }
+        return status;
+    }
+
+    private void commit(TransferEvent event, long id, SpaceBase spaceBase, OperationStatus status) {
+        if (event.shouldCommit()) {
+            event.shipId = id;
+            event.fromBase = name;
+            event.toBase = spaceBase.name;
+            event.status = status.name();
+            event.commit();
+        }
+    }
+
+    // docks a ship which has been checked already, with the lock held
+    private void dock(SpaceShip spaceship) {
+        dock(spaceship, true);
+    }
+
+    private void dock(SpaceShip spaceship, boolean refuelAtHome) {
+        // in the berths before it names this base, see ShipDirectory.baseOf
+        addShip(spaceship);
+        spaceship.dockAt(this, refuelAtHome);
+        FleetListeners.docked(this, spaceship);
+    }
+
+    /**
+     * @return the ship with the given id if it is docked here
+     */
+    public Optional<SpaceShip> findShip(Long id) {
+        lock.lock();
+        try {
+            return Optional.ofNullable(shipWithId(id));
+        } finally {
+            lock.unlock();
+        }
+    }
+
     private SpaceShip shipWithId(Long id) {
+        return shipWithId(this, id);
+    }
+
+    private static SpaceShip shipWithId(SpaceBase spaceBase, Long id) {
         if (id == null) {
             return null;
         }
-        for (SpaceShip spaceship : shipList) {
-            if (spaceship.getId().equals(id)) {
-                return spaceship;
+        Berth berth = spaceBase.ships.get(id);
+        return berth != null ? berth.spaceship : null;
+    }
+
+    private void addShip(SpaceShip spaceship) {
+        Berth berth = new Berth(spaceship);
+        ships.put(berth.id, berth);
+        shipsByFuel.add(berth);
+        view = view.with(view.ships().put(berth.id, spaceship));
+        spaceship.store().directory().docked(spaceship);
+    }
+
+    /**
+     * @return the docked ships in docking order, the caller holds the lock
+     */
+    List<SpaceShip> dockedShips() {
+        List<SpaceShip> docked = new ArrayList<>(ships.size());
+        for (Berth berth : ships.values()) {
+            docked.add(berth.spaceship);
+        }
+        return docked;
+    }
+
+    /**
+     * Puts restored ships back into their berths as they are, without the
+     * checks and the refuelling of {@link #docking}.
+     */
+    void restoreShips(List<SpaceShip> spaceships) {
+        lock.lock();
+        try {
+            ships.ensureCapacity(ships.size() + spaceships.size());
+            for (SpaceShip spaceship : spaceships) {
+                addShip(spaceship);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Lets a ship leave its berth here without going anywhere else, e.g. to
+     * start a flight. Does nothing if the ship is not docked here.
+     */
+    void undock(SpaceShip spaceship) {
+        lock.lock();
+        try {
+            Berth berth = ships.get(spaceship.id());
+            if (berth != null) {
+                removeShip(berth.spaceship);
+                FleetListeners.departed(this, berth.spaceship);
             }
+        } finally {
+            lock.unlock();
         }
-        return null;
     }
 
+    /**
+     * Takes a restored ship out of its berth, without the checks of a
+     * transfer.
+     *
+     * @return false if the ship was not docked here
+     */
+    boolean restoreDeparture(long id) {
+        lock.lock();
+        try {
+            SpaceShip spaceship = shipWithId(id);
+            if (spaceship == null)
+                return false;
+            removeShip(spaceship);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    boolean isDocked(long id) {
+        lock.lock();
+        try {
+            return ships.containsKey(id);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void removeShip(SpaceShip spaceship) {
+        Berth berth = ships.remove(spaceship.id());
+        shipsByFuel.remove(berth);
+        view = view.with(view.ships().remove(berth.id));
+    }
+
+    /**
+     * Called by a docked spaceship after its fuel has changed, moves it to its
+     * new place in the fuel order.
+     */
+    void fuelChanged(SpaceShip spaceship) {
+        lock.lock();
+        try {
+            Berth berth = ships.get(spaceship.id());
+            if (berth != null) {
+                shipsByFuel.remove(berth);
+                berth.fuel = spaceship.getFuel();
+                shipsByFuel.add(berth);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The current version of the base, in O(1) and without waiting for
+     * writers. The view stays as it is while the base changes on.
+     */
+    public SpaceBaseView snapshot() {
+        return view;
+    }
+
+    /**
+     * @return a copy of the docked ships ordered by id, taken from a
+     *         {@link #snapshot()} without locking the base
+     */
     public List<SpaceShip> arrangeShips() {
-        shipList.sort(null);
-        return new LinkedList<>(shipList);
+        return new LinkedList<>(view.ships().values());
     }
 
+    /**
+     * @return a copy of the docked ships ordered by fuel (and id for equal fuel)
+     */
     public List<SpaceShip> arrangeShipsByFuel() {
-        shipList.sort(Comparator.comparingDouble(SpaceShip::getFuel));
-        return new LinkedList<>(shipList);
+        return new LinkedList<>(shipsByFuel());
+    }
+
+    /**
+     * Read-only view of the docked ships ordered by id. Unlike arrangeShips()
+     * nothing is copied: the view shows the {@link #snapshot()} it was taken
+     * from, however the base changes on.
+     */
+    public Collection<SpaceShip> shipsById() {
+        return Collections.unmodifiableCollection(view.ships().values());
+    }
+
+    /**
+     * @return a read-only copy of the docked ships ordered by fuel (and id for
+     *         equal fuel), taken under the lock of the base
+     */
+    public List<SpaceShip> shipsByFuel() {
+        lock.lock();
+        try {
+            List<SpaceShip> byFuel = new ArrayList<>(shipsByFuel.size());
+            for (Berth berth : shipsByFuel) {
+                byFuel.add(berth.spaceship);
+            }
+            return Collections.unmodifiableList(byFuel);
+        } finally {
+            lock.unlock();
+        }
     }
 
     public Long buildShip() throws ApplicationException {
-        SpaceShip spaceship = new SpaceShip(this, this.getPosX(), this.getPosY(), 2000.0);
+        long start = Metrics.start();
+        // built and docked in one operation, so a journal never has it only built
+        SpaceShip spaceship = new SpaceShip(SpaceShip.getDefaultStore(), this, this.getPosX(), this.getPosY(), 2000.0, false);
+        FleetListeners.built(this, spaceship);
         this.docking(spaceship);
+        Metrics.record(Operation.BUILD_SHIP, index, name, start, true);
         return spaceship.getId();
     }
 
+    /**
+     * Builds and docks the given number of ships, taking the lock only once.
+     */
+    public BatchResult buildShips(int count) throws ApplicationException {
+        isNotNegative(count, "count");
+
+        long start = Metrics.start();
+        SpaceShip[] built = new SpaceShip[count];
+        for (int i = 0; i < count; i++) {
+            built[i] = new SpaceShip(SpaceShip.getDefaultStore(), this, this.getPosX(), this.getPosY(), 2000.0, false);
+            FleetListeners.built(this, built[i]);
+        }
+
+        BatchResult result = new BatchResult(count);
+        lock.lock();
+        try {
+            ships.ensureCapacity(ships.size() + count);
+            for (int i = 0; i < count; i++) {
+                dock(built[i]);
+                result.succeeded(i, built[i].id());
+            }
+        } finally {
+            lock.unlock();
+        }
+        FleetListeners.completed();
+        Metrics.record(Operation.BUILD_SHIP, index, name, start, count);
+        return result;
+    }
+
     @Override
     public String toString() {
-        StringBuilder sb = new StringBuilder("SpaceBase ");
-        sb.append("'").append(name).append("'");
-        sb.append(", position ").append(posX);
-        sb.append("/").append(posY);
-        if (!shipList.isEmpty()) {
-            sb.append(", ").append(shipList.size()).append(" ").append(shipList.size() > 1 ? "ships" : "ship").append(" in docks\n");
-            for (SpaceShip spaceship : shipList) {
-                sb.append(spaceship).append("\n");
-            }
+        return view.toString();
+    }
+
+    // a docked ship together with the fuel it is sorted by
+    private static final class Berth implements Comparable<Berth> {
+
+        private final SpaceShip spaceship;
+        private final long id;
+        private double fuel;
+
+        private Berth(SpaceShip spaceship) {
+            this.spaceship = spaceship;
+            this.id = spaceship.id();
+            this.fuel = spaceship.getFuel();
+        }
+
+        @Override
+        public int compareTo(Berth other) {
+            int byFuel = Double.compare(fuel, other.fuel);
+            return byFuel != 0 ? byFuel : Long.compare(id, other.id);
+        }
+    }
+
+    // Locking ---------------------------------------------------------------------
+
+    // takes the locks of this and the other base, lower index first
+    private void lockWith(SpaceBase other) {
+        if (other == this) {
+            lock.lock();
+        } else if (index < other.index) {
+            lock.lock();
+            other.lock.lock();
         } else {
-            sb.append(", no ships");
+            other.lock.lock();
+            lock.lock();
+        }
+    }
+
+    private void unlockWith(SpaceBase other) {
+        if (other != this) {
+            other.lock.unlock();
+        }
+        lock.unlock();
+    }
+
+    /**
+     * Locks all given bases in the global order.
+     *
+     * @return the bases in locking order, to be passed to {@link #unlockAll}
+     */
+    static SpaceBase[] lockAll(Collection<SpaceBase> spaceBases) {
+        SpaceBase[] ordered = spaceBases.toArray(new SpaceBase[0]);
+        Arrays.sort(ordered, (a, b) -> Integer.compare(a.index, b.index));
+        for (SpaceBase spaceBase : ordered) {
+            spaceBase.lock.lock();
+        }
+        return ordered;
+    }
+
+    static void unlockAll(SpaceBase[] ordered) {
+        for (int i = ordered.length - 1; i >= 0; i--) {
+            ordered[i].lock.unlock();
         }
-        return sb.toString();
     }
 }
@@ -0,0 +1,296 @@
+package at.spengergasse.domain;
+
+import at.spengergasse.ApplicationException;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static at.spengergasse.foundation.Assert.isNotNull;
+import static at.spengergasse.foundation.Assert.isNotNegative;
+
+
+/**
+ * Spatial index over the positions of space bases.
+ *
+ * Bases are kept in a quadtree over the whole coordinate space, so adding and
+ * removing a base as well as the queries below take logarithmic time instead
+ * of measuring the distance to every base.
+ *
+ * Safe to use from several threads; queries run concurrently, changes are
+ * exclusive.
+ */
+public class SpaceBaseIndex {
+
+    // bases per leaf before it is split into four
+    private static final int BUCKET_SIZE = 8;
+    // positions are non-negative ints, so the root covers [0, 2^31) x [0, 2^31)
+    private static final long ROOT_SIDE = 1L << 31;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<SpaceBase, Boolean> indexed = new IdentityHashMap<>();
+    private Node root = new Node(0, 0, ROOT_SIDE);
+
+    public SpaceBaseIndex() {
+    }
+
+    public SpaceBaseIndex(Iterable<SpaceBase> spaceBases) {
+        for (SpaceBase spaceBase : spaceBases) {
+            add(spaceBase);
+        }
+    }
+
+
+    // Modifications ---------------------------------------------------------------
+
+    /**
+     * @return false if the base was indexed already
+     */
+    public boolean add(SpaceBase spaceBase) throws ApplicationException {
+        isNotNull(spaceBase, "spaceBase");
+
+        lock.writeLock().lock();
+        try {
+            if (indexed.put(spaceBase, Boolean.TRUE) != null)
+                return false;
+            root.insert(spaceBase);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return false if the base was not indexed
+     */
+    public boolean remove(SpaceBase spaceBase) {
+        if (spaceBase == null)
+            return false;
+
+        lock.writeLock().lock();
+        try {
+            if (indexed.remove(spaceBase) == null)
+                return false;
+            root.remove(spaceBase);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean contains(SpaceBase spaceBase) {
+        lock.readLock().lock();
+        try {
+            return indexed.containsKey(spaceBase);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return indexed.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+
+    // Queries ---------------------------------------------------------------------
+
+    /**
+     * @return up to k bases closest to the position, nearest first
+     */
+    public List<SpaceBase> nearest(int posX, int posY, int k) throws ApplicationException {
+        isNotNegative(k, "k");
+
+        lock.readLock().lock();
+        try {
+            List<SpaceBase> result = new ArrayList<>(Math.min(k, indexed.size()));
+            // best first: nodes by the distance to their box, bases by their own distance
+            PriorityQueue<Candidate> queue = new PriorityQueue<>();
+            queue.add(new Candidate(root.distanceSquared(posX, posY), root, null));
+            while (result.size() < k && !queue.isEmpty()) {
+                Candidate candidate = queue.poll();
+                if (candidate.spaceBase != null) {
+                    result.add(candidate.spaceBase);
+                } else if (candidate.node.children != null) {
+                    for (Node child : candidate.node.children) {
+                        if (child.count > 0)
+                            queue.add(new Candidate(child.distanceSquared(posX, posY), child, null));
+                    }
+                } else {
+                    for (SpaceBase spaceBase : candidate.node.bases) {
+                        queue.add(new Candidate(distanceSquared(spaceBase, posX, posY), null, spaceBase));
+                    }
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return all bases the spaceship can reach from its position with its
+     *         current fuel, in no particular order
+     */
+    public List<SpaceBase> reachableBy(SpaceShip spaceship) throws ApplicationException {
+        isNotNull(spaceship, "spaceship");
+        return reachableFrom(spaceship.getPosX(), spaceship.getPosY(), spaceship.getFuel());
+    }
+
+    /**
+     * @return all bases a spaceship with the given fuel can reach from the
+     *         position, in no particular order
+     */
+    public List<SpaceBase> reachableFrom(int posX, int posY, double fuel) {
+        List<SpaceBase> result = new ArrayList<>();
+        if (fuel < 0.0)
+            return result;
+
+        double range = SpaceShip.rangeFor(fuel);
+        // a little slack for rounding, the exact check below decides
+        double rangeSquared = (range + 1.0) * (range + 1.0);
+
+        lock.readLock().lock();
+        try {
+            collectWithin(root, posX, posY, fuel, rangeSquared, result);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static void collectWithin(Node node, int posX, int posY, double fuel, double rangeSquared, List<SpaceBase> result) {
+        if (node.count == 0 || node.distanceSquared(posX, posY) > rangeSquared)
+            return;
+
+        if (node.children != null) {
+            for (Node child : node.children) {
+                collectWithin(child, posX, posY, fuel, rangeSquared, result);
+            }
+        } else {
+            for (SpaceBase spaceBase : node.bases) {
+                double distance = SpaceShip.distanceBetween(posX, posY, spaceBase.getPosX(), spaceBase.getPosY());
+                if (SpaceShip.canTravel(fuel, distance))
+                    result.add(spaceBase);
+            }
+        }
+    }
+
+    private static double distanceSquared(SpaceBase spaceBase, int posX, int posY) {
+        double dx = spaceBase.getPosX() - posX;
+        double dy = spaceBase.getPosY() - posY;
+        return dx * dx + dy * dy;
+    }
+
+
+    // Quadtree --------------------------------------------------------------------
+
+    private record Candidate(double distanceSquared, Node node, SpaceBase spaceBase) implements Comparable<Candidate> {
+
+        @Override
+        public int compareTo(Candidate other) {
+            return Double.compare(distanceSquared, other.distanceSquared);
+        }
+    }
+
+    private static final class Node {
+
+        private final long minX;
+        private final long minY;
+        private final long side;
+
+        // bases of a leaf; null once the node is split
+        private List<SpaceBase> bases = new ArrayList<>();
+        private Node[] children;
+        private int count;
+
+        private Node(long minX, long minY, long side) {
+            this.minX = minX;
+            this.minY = minY;
+            this.side = side;
+        }
+
+        private void insert(SpaceBase spaceBase) {
+            count++;
+            if (children != null) {
+                childFor(spaceBase).insert(spaceBase);
+                return;
+            }
+            bases.add(spaceBase);
+            if (bases.size() > BUCKET_SIZE && side > 1) {
+                split();
+            }
+        }
+
+        private void remove(SpaceBase spaceBase) {
+            count--;
+            if (children != null) {
+                childFor(spaceBase).remove(spaceBase);
+                if (count <= BUCKET_SIZE) {
+                    merge();
+                }
+            } else {
+                for (int i = 0; i < bases.size(); i++) {
+                    if (bases.get(i) == spaceBase) {
+                        bases.remove(i);
+                        break;
+                    }
+                }
+            }
+        }
+
+        private void split() {
+            long half = side / 2;
+            children = new Node[] {
+                new Node(minX, minY, half),
+                new Node(minX + half, minY, half),
+                new Node(minX, minY + half, half),
+                new Node(minX + half, minY + half, half)
+            };
+            List<SpaceBase> old = bases;
+            bases = null;
+            for (SpaceBase spaceBase : old) {
+                childFor(spaceBase).insert(spaceBase);
+            }
+        }
+
+        private void merge() {
+            List<SpaceBase> merged = new ArrayList<>(BUCKET_SIZE);
+            collect(merged);
+            children = null;
+            bases = merged;
+        }
+
+        private void collect(List<SpaceBase> target) {
+            if (children != null) {
+                for (Node child : children) {
+                    child.collect(target);
+                }
+            } else {
+                target.addAll(bases);
+            }
+        }
+
+        private Node childFor(SpaceBase spaceBase) {
+            long half = side / 2;
+            int quadrant = (spaceBase.getPosX() >= minX + half ? 1 : 0)
+                + (spaceBase.getPosY() >= minY + half ? 2 : 0);
+            return children[quadrant];
+        }
+
+        // squared distance from the position to the closest point of the box
+        private double distanceSquared(int posX, int posY) {
+            double dx = Math.max(0, Math.max(minX - posX, posX - (minX + side - 1)));
+            double dy = Math.max(0, Math.max(minY - posY, posY - (minY + side - 1)));
+            return dx * dx + dy * dy;
+        }
+    }
+}
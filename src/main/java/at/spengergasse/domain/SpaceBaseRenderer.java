@@ -0,0 +1,116 @@
+package at.spengergasse.domain;
+
+import at.spengergasse.ApplicationException;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Iterator;
+
+import static at.spengergasse.foundation.Assert.isNotNegative;
+import static at.spengergasse.foundation.Assert.isNotNull;
+import static at.spengergasse.foundation.Assert.isTrue;
+
+
+/**
+ * Writes a space base in the format of {@link SpaceBase#toString()}, but
+ * ship by ship to an output instead of into one string, so a base of any
+ * size is written in constant memory.
+ *
+ * Large bases can be paged through, either by page number or by cursor. A
+ * cursor is the id of the last ship written; the next page starts after it,
+ * no matter which ships were docked or moved away in between. The header
+ * line is part of the first page only. All pages of one {@link SpaceBaseView}
+ * fit together without gaps or repetitions.
+ */
+public final class SpaceBaseRenderer {
+
+    /** Cursor of the first page. */
+    public static final long FIRST_PAGE = Long.MIN_VALUE;
+    /** Cursor returned after the last page. */
+    public static final long END = Long.MAX_VALUE;
+
+    // chars buffered by dump before they go to the writer
+    static final int BUFFER_SIZE = 8 * 1024;
+
+    private SpaceBaseRenderer() {
+    }
+
+    /**
+     * Writes the whole base through a buffer of fixed size and flushes the
+     * writer at the end.
+     */
+    public static void dump(SpaceBase spaceBase, Writer out) throws IOException, ApplicationException {
+        isNotNull(spaceBase, "spaceBase");
+        isNotNull(out, "out");
+
+        BufferedWriter buffered = new BufferedWriter(out, BUFFER_SIZE);
+        SpaceBaseView view = spaceBase.snapshot();
+        header(view, buffered);
+        ships(view.ships().valuesAfter(FIRST_PAGE), Integer.MAX_VALUE, buffered);
+        buffered.flush();
+    }
+
+    /**
+     * Writes up to pageSize ships with an id greater than the cursor.
+     *
+     * @param cursor {@link #FIRST_PAGE} or the cursor returned for the page before
+     * @return the cursor of the next page, {@link #END} if there are no more ships
+     */
+    public static long renderAfter(SpaceBaseView view, Appendable out, long cursor, int pageSize)
+            throws IOException, ApplicationException {
+        isNotNull(view, "view");
+        isNotNull(out, "out");
+        isTrue(pageSize > 0, "pageSize %d is not positive", pageSize);
+
+        if (cursor == FIRST_PAGE) {
+            header(view, out);
+        }
+        return ships(view.ships().valuesAfter(cursor), pageSize, out);
+    }
+
+    /**
+     * Writes the given page of ships, counted from 0. Finding the page takes
+     * O(log n), the ships before it are not visited.
+     *
+     * @return the cursor to continue after this page, {@link #END} if it was the last
+     */
+    public static long renderPage(SpaceBaseView view, Appendable out, int page, int pageSize)
+            throws IOException, ApplicationException {
+        isNotNull(view, "view");
+        isNotNull(out, "out");
+        isNotNegative(page, "page");
+        isTrue(pageSize > 0, "pageSize %d is not positive", pageSize);
+
+        if (page == 0) {
+            header(view, out);
+        }
+        long first = (long) page * pageSize;
+        if (first >= view.shipCount())
+            return END;
+        return ships(view.ships().valuesFrom((int) first), pageSize, out);
+    }
+
+    private static void header(SpaceBaseView view, Appendable out) throws IOException {
+        out.append("SpaceBase '").append(view.name()).append("'");
+        out.append(", position ").append(Integer.toString(view.posX()));
+        out.append("/").append(Integer.toString(view.posY()));
+        int count = view.shipCount();
+        if (count > 0) {
+            out.append(", ").append(Integer.toString(count)).append(count > 1 ? " ships" : " ship").append(" in docks\n");
+        } else {
+            out.append(", no ships");
+        }
+    }
+
+    private static long ships(Iterator<SpaceShip> ships, int limit, Appendable out) throws IOException {
+        long cursor = END;
+        for (int i = 0; i < limit && ships.hasNext(); i++) {
+            SpaceShip spaceship = ships.next();
+            spaceship.appendTo(out);
+            out.append('\n');
+            cursor = spaceship.id();
+        }
+        return ships.hasNext() ? cursor : END;
+    }
+}
@@ -0,0 +1,60 @@
+package at.spengergasse.domain;
+
+import at.spengergasse.foundation.PersistentLongMap;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * A version of a space base as returned by {@link SpaceBase#snapshot()}: its
+ * name, position and the set of docked ships at one point in time.
+ *
+ * Views never change. Later changes of the base make a new view, sharing
+ * most of the ship set with this one. The spaceships themselves are live:
+ * their fuel and position are the current ones, not those of the version.
+ *
+ * @param version counts the changes of the base, a higher version is newer
+ * @param ships the docked ships by id
+ */
+public record SpaceBaseView(long version, String name, int posX, int posY, PersistentLongMap<SpaceShip> ships) {
+
+    public int shipCount() {
+        return ships.size();
+    }
+
+    public boolean isDocked(long id) {
+        return ships.containsKey(id);
+    }
+
+    /**
+     * @return the docked ships ordered by id, like {@link SpaceBase#arrangeShips()}
+     */
+    public List<SpaceShip> arrangeShips() {
+        return new ArrayList<>(ships.values());
+    }
+
+    // the next version with other ships
+    SpaceBaseView with(PersistentLongMap<SpaceShip> ships) {
+        return new SpaceBaseView(version + 1, name, posX, posY, ships);
+    }
+
+    // the next version with another name
+    SpaceBaseView with(String name) {
+        return new SpaceBaseView(version + 1, name, posX, posY, ships);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        try {
+            SpaceBaseRenderer.renderAfter(this, sb, SpaceBaseRenderer.FIRST_PAGE, Integer.MAX_VALUE);
+        } catch (IOException e) {
+            // a StringBuilder does not throw
+            throw new UncheckedIOException(e);
+        }
+        return sb.toString();
+    }
+}
@@ -1,148 +1,394 @@
 package at.spengergasse.domain;
 
 import at.spengergasse.ApplicationException;
+import at.spengergasse.foundation.BlockIdAllocator;
+import at.spengergasse.foundation.IdAllocator;
+import at.spengergasse.metrics.Metrics;
+import at.spengergasse.metrics.Operation;
 
-import java.util.Objects;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 
 import static at.spengergasse.foundation.Assert.hasMaxLength;
+import static at.spengergasse.foundation.Assert.isNotNull;
 
+/**
+ * A spaceship.
+ *
+ * The state of a spaceship lives in a {@link FleetStore}; a SpaceShip object
+ * is only a handle to its slot there. Unless a store is given explicitly, new
+ * spaceships go into the default store (see {@link #setDefaultStore}).
+ */
 public class SpaceShip implements Comparable<SpaceShip>{
 
-    private static final double MAX_FUEL = 2000.0;
-    private static final double FUEL_CONSUMPTION_PER_AU = 3.58;
-    private static Long idCounter = 100L;
+    static final double MAX_FUEL = 2000.0;
+    static final double FUEL_CONSUMPTION_PER_AU = 3.58;
+    private static volatile IdAllocator idAllocator = new BlockIdAllocator(100L);
+    private static volatile FleetStore defaultStore = FleetStore.onHeap();
 
-    private final Long id;
-    private int posX;
-    private int posY;
-    private double fuel;
+    private final FleetStore store;
+    private final int slot;
 
-    private SpaceBase homeBase;
-    private SpaceBase dockingBase;
-
-    private String name;
+    // the base columns only hold indexes, which the registry of bases keeps
+    // weakly: the ship keeps its bases alive for as long as it is in use itself
+    private SpaceBase keptHomeBase;
+    private SpaceBase keptDockingBase;
 
     public SpaceShip() throws ApplicationException {
-        id = idCounter++;
-        posX = 0;
-        posY = 0;
-        fuel = 1000;
-        homeBase = new SpaceBase("International Space Station", 0, 0);
-        dockingBase = null;
+        store = defaultStore;
+        slot = store.allocate(idAllocator.nextId());
+        store.setFuel(slot, 1000);
+        setHomeBase(new SpaceBase("International Space Station", 0, 0));
+        FleetListeners.shipChanged(this);
+        FleetListeners.completed();
     }
 
     public SpaceShip(SpaceBase homeBase, int posX, int posY, double fuel) throws ApplicationException {
-            id = idCounter++;
+        this(defaultStore, homeBase, posX, posY, fuel);
+    }
+
+    public SpaceShip(FleetStore store, SpaceBase homeBase, int posX, int posY, double fuel) throws ApplicationException {
+        this(store, homeBase, posX, posY, fuel, true);
+    }
+
+    // without completing the operation, when the ship is built as part of a larger one
+    SpaceShip(FleetStore store, SpaceBase homeBase, int posX, int posY, double fuel, boolean complete) throws ApplicationException {
+            this.store = isNotNull(store, "store");
+            slot = store.allocate(idAllocator.nextId());
             setHomeBase(homeBase);
             setPosX(posX);
             setPosY(posY);
-            refuel(fuel);
-            dockingBase = null;
+            // the initial fuel is checked like a refuel, but not reported as one
+            checkRefuel(refuelAndRecord(fuel), fuel);
+            if (complete) {
+                FleetListeners.completed();
+            }
+    }
+
+    // handle to a slot which is already filled
+    SpaceShip(FleetStore store, int slot) {
+        this.store = store;
+        this.slot = slot;
+        basesRestored();
+    }
+
+    /**
+     * Keeps the bases alive which the base columns were restored to, see
+     * {@link Journal#replay}.
+     */
+    void basesRestored() {
+        keptHomeBase = getHomeBase();
+        keptDockingBase = getDockingBase();
+    }
+
+    /**
+     * Replaces the allocator used for the ids of new spaceships, e.g. to
+     * resume a persisted fleet from its high-water mark.
+     */
+    public static void setIdAllocator(IdAllocator idAllocator) {
+        SpaceShip.idAllocator = isNotNull(idAllocator, "idAllocator");
+    }
+
+    public static IdAllocator getIdAllocator() {
+        return idAllocator;
+    }
+
+    /**
+     * Replaces the store new spaceships are put into, e.g. to keep a large
+     * fleet off-heap with {@link FleetStore#offHeap()}.
+     */
+    public static void setDefaultStore(FleetStore store) {
+        SpaceShip.defaultStore = isNotNull(store, "store");
+    }
+
+    public static FleetStore getDefaultStore() {
+        return defaultStore;
+    }
+
+    FleetStore getStore() {
+        return store;
+    }
+
+    int getSlot() {
+        return slot;
     }
 
     public Long getId() {
-        return id;
+        return store.id(slot);
+    }
+
+    // the id without boxing it
+    long id() {
+        return store.id(slot);
+    }
+
+    FleetStore store() {
+        return store;
+    }
+
+    int slot() {
+        return slot;
     }
 
     public int getPosX() {
-        return posX;
+        return store.posX(slot);
     }
 
     private void setPosX(int posX) throws ApplicationException {
         if (posX >= 0) {
-            this.posX = posX;
+            store.setPosX(slot, posX);
         } else {
             throw new ApplicationException("setPosX: posX-value is not valid (" + posX + ")");
         }
     }
 
     public int getPosY() {
-        return posY;
+        return store.posY(slot);
     }
 
     private void setPosY(int posY) throws ApplicationException {
-        if (posX >= 0) {
-            this.posY = posY;
+        if (posY >= 0) {
+            store.setPosY(slot, posY);
         } else {
             throw new ApplicationException("setPosY: posY-value is not valid (" + posY + ")");
         }
     }
 
     public double getFuel() {
-        return fuel;
+        return store.fuel(slot);
+    }
+
+    // lets the docking base re-sort the ship by its new fuel
+    private void setFuel(double fuel) {
+        store.setFuel(slot, fuel);
+        SpaceBase dockingBase = getDockingBase();
+        if (dockingBase != null) {
+            dockingBase.fuelChanged(this);
+        }
     }
 
     public void refuel(double fuel) throws ApplicationException {
+        checkRefuel(tryRefuel(fuel), fuel);
+    }
+
+    private static void checkRefuel(OperationStatus status, double fuel) throws ApplicationException {
+        switch (status) {
+            case FUEL_AMOUNT_TOO_HIGH -> throw new ApplicationException("refuel: amount " + fuel + " is too much");
+            case FUEL_AMOUNT_NEGATIVE -> throw new ApplicationException("refuel: amount " + fuel + " is to too less");
+            default -> { }
+        }
+    }
+
+    /**
+     * Like {@link #refuel}, but reports a failure as status instead of throwing.
+     */
+    public OperationStatus tryRefuel(double fuel) {
+        OperationStatus status = refuelAndRecord(fuel);
+        if (status.isOk()) {
+            FleetListeners.refuelled(this, fuel);
+        }
+        FleetListeners.completed();
+        return status;
+    }
+
+    private OperationStatus refuelAndRecord(double fuel) {
+        long start = Metrics.start();
+        RefuelEvent event = new RefuelEvent();
+        event.begin();
+        if (start == 0L && !event.isEnabled())
+            return refuelStatus(fuel);
+
+        SpaceBase dockingBase = getDockingBase();
+        String baseName = dockingBaseName(dockingBase);
+        double fuelBefore = getFuel();
+        OperationStatus status = refuelStatus(fuel);
+        if (start != 0L) {
+            Metrics.record(Operation.REFUEL, dockingBaseIndex(dockingBase), baseName, start, status.isOk());
+        }
+        if (event.shouldCommit()) {
+            event.shipId = id();
+            event.dockingBase = baseName;
+            event.fuelDelta = getFuel() - fuelBefore;
+            event.status = status.name();
+            event.commit();
+        }
+        return status;
+    }
+
+    private OperationStatus refuelStatus(double fuel) {
         if ( fuel >= 0.0 ) {
-            if (fuel + this.fuel <= MAX_FUEL) {
-                this.fuel = Math.min(fuel + this.fuel, MAX_FUEL);
+            double currentFuel = getFuel();
+            if (fuel + currentFuel <= MAX_FUEL) {
+                setFuel(Math.min(fuel + currentFuel, MAX_FUEL));
+                FleetListeners.shipChanged(this);
+                return OperationStatus.OK;
             } else {
-                throw new ApplicationException("refuel: amount " + fuel + " is too much");
+                return OperationStatus.FUEL_AMOUNT_TOO_HIGH;
             }
         } else {
-            throw new ApplicationException("refuel: amount " + fuel + " is to too less");
+            return OperationStatus.FUEL_AMOUNT_NEGATIVE;
         }
     }
 
     public SpaceBase getHomeBase() {
-        return homeBase;
+        return SpaceBase.withIndex(store.homeBase(slot));
     }
 
     private void setHomeBase(SpaceBase homeBase) throws ApplicationException {
         if (homeBase != null) {
-            this.homeBase = homeBase;
+            keptHomeBase = homeBase;
+            store.setHomeBase(slot, homeBase.getIndex());
         } else {
             throw new ApplicationException("homeBase is null");
         }
     }
 
     public SpaceBase getDockingBase() {
-        return dockingBase;
+        return SpaceBase.withIndex(store.dockingBase(slot));
     }
 
     public void setDockingBase(SpaceBase dockingBase) {
-        this.dockingBase = dockingBase;
-        if (isHomeBase(dockingBase)) {
-            fuel = MAX_FUEL;
+        dockAt(dockingBase);
+        FleetListeners.completed();
+    }
+
+    // setDockingBase as part of a larger operation, e.g. docking
+    void dockAt(SpaceBase dockingBase) {
+        dockAt(dockingBase, true);
+    }
+
+    // without refuelAtHome the fuel is left to a DockingScheduler's pumps
+    void dockAt(SpaceBase dockingBase, boolean refuelAtHome) {
+        keptDockingBase = dockingBase;
+        store.setDockingBase(slot, dockingBase != null ? dockingBase.getIndex() : FleetStore.NO_BASE);
+        if (refuelAtHome && isHomeBase(dockingBase)) {
+            setFuel(MAX_FUEL);
         }
+        FleetListeners.shipChanged(this);
     }
 
     public void moveTo( int posX, int posY) throws ApplicationException {
+        switch (tryMoveTo(posX, posY)) {
+            case LACK_OF_FUEL -> throw new ApplicationException("moveTo: lack of fuel (" +
+                    (getFuel() - calculateConsumption(calculateDistanceTo(posX, posY))) + ")");
+            case INVALID_POSITION -> throw new ApplicationException("moveTo: wrong target-position: " + posX + "/" + posY);
+            default -> { }
+        }
+    }
+
+    /**
+     * Like {@link #moveTo}, but reports a failure as status instead of throwing.
+     */
+    public OperationStatus tryMoveTo(int posX, int posY) {
+        OperationStatus status = move(posX, posY);
+        FleetListeners.completed();
+        return status;
+    }
+
+    // tryMoveTo as part of a larger operation, e.g. a transfer between bases
+    OperationStatus move(int posX, int posY) {
+        long start = Metrics.start();
+        MoveEvent event = new MoveEvent();
+        event.begin();
+        if (start == 0L && !event.isEnabled())
+            return moveToStatus(posX, posY);
+
+        // where the spaceship departs from, before the move changes anything
+        SpaceBase dockingBase = getDockingBase();
+        String baseName = dockingBaseName(dockingBase);
+        double fuel = getFuel();
+        double distance = distanceBetween(getPosX(), getPosY(), posX, posY);
+        OperationStatus status = moveToStatus(posX, posY);
+        if (start != 0L) {
+            Metrics.record(Operation.MOVE_TO, dockingBaseIndex(dockingBase), baseName, start, status.isOk());
+            if (status.isOk()) {
+                Metrics.recordFuelBurned(dockingBaseIndex(dockingBase), baseName, fuel - getFuel());
+            }
+        }
+        if (event.shouldCommit()) {
+            event.shipId = id();
+            event.dockingBase = baseName;
+            event.distance = distance;
+            event.fuelDelta = getFuel() - fuel;
+            event.status = status.name();
+            event.commit();
+        }
+        return status;
+    }
+
+    private OperationStatus moveToStatus(int posX, int posY) {
         double distance;
         double newFuel;
         if (posX >= 0 && posY >= 0) {
-            distance = calculateDistanceTo(posX, posY);
-            newFuel  = fuel - calculateConsumption(distance);
+            distance = distanceBetween(getPosX(), getPosY(), posX, posY);
+            newFuel  = getFuel() - calculateConsumption(distance);
             if (newFuel >= 0.0) {
-                this.posX = posX;
-                this.posY = posY;
-                fuel = newFuel;
+                store.setPosX(slot, posX);
+                store.setPosY(slot, posY);
+                setFuel(newFuel);
+                FleetListeners.shipChanged(this);
+                FleetListeners.moved(this);
+                return OperationStatus.OK;
             } else {
-                throw new ApplicationException("moveTo: lack of fuel (" + newFuel + ")");
+                return OperationStatus.LACK_OF_FUEL;
             }
         } else {
-            throw new ApplicationException("moveTo: wrong target-position: " + posX + "/" + posY);
+            return OperationStatus.INVALID_POSITION;
         }
     }
 
+    private static String dockingBaseName(SpaceBase dockingBase) {
+        return dockingBase != null ? dockingBase.getName() : Metrics.NO_BASE;
+    }
+
+    private static int dockingBaseIndex(SpaceBase dockingBase) {
+        return dockingBase != null ? dockingBase.getIndex() : Metrics.NO_BASE_INDEX;
+    }
+
     private double calculateConsumption(double distance) {
-        if (distance >= 0.0) {
-            return distance * FUEL_CONSUMPTION_PER_AU;
-        } else {
-            return 0.0;
-        }
+        return consumptionFor(distance);
     }
 
     private double calculateDistanceTo( int posX, int posY) throws ApplicationException {
         if (posX >= 0 && posY >= 0) {
-             return Math.sqrt(Math.pow((posX - this.posX), 2.0) + Math.pow((posY - this.posY), 2.0));
+             return distanceBetween(getPosX(), getPosY(), posX, posY);
          } else {
             throw new ApplicationException("calculateDistanceTo: wrong target-position: " + posX + "/" + posY);
         }
     }
 
+    // the formulas of moveTo, shared with code planning moves ahead of time
+
+    static double consumptionFor(double distance) {
+        if (distance >= 0.0) {
+            return distance * FUEL_CONSUMPTION_PER_AU;
+        } else {
+            return 0.0;
+        }
+    }
+
+    static double distanceBetween(int fromX, int fromY, int toX, int toY) {
+        double dx = toX - fromX;
+        double dy = toY - fromY;
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    /**
+     * @return the farthest distance the given amount of fuel lasts for
+     */
+    static double rangeFor(double fuel) {
+        return fuel / FUEL_CONSUMPTION_PER_AU;
+    }
+
+    /**
+     * @return true if a ship with the given fuel can travel the distance
+     */
+    static boolean canTravel(double fuel, double distance) {
+        return fuel - consumptionFor(distance) >= 0.0;
+    }
+
     public boolean isHomeBase (SpaceBase spaceBase) {
-        return this.getHomeBase().equals(spaceBase);
+        return spaceBase != null && store.homeBase(slot) == spaceBase.getIndex();
     }
 
     @Override
@@ -150,26 +396,40 @@ public class SpaceShip implements Comparable<SpaceShip>{
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         SpaceShip spaceShip = (SpaceShip) o;
-        return id.equals(spaceShip.id);
+        return store.id(slot) == spaceShip.store.id(spaceShip.slot);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id);
+        return Long.hashCode(store.id(slot));
     }
 
     @Override
     public int compareTo(SpaceShip other) {
-        return Long.compare(this.id, other.getId());
+        return Long.compare(store.id(slot), other.store.id(other.slot));
     }
 
     @Override
     public String toString() {
-        return "SpaceShip " + "id " + id +
-                ", position " + posX +
-                "/" + posY +
-                ", fuel " + fuel +
-                "\nhomebase: " + (homeBase != null ? homeBase.getName() : "none") +
-                "\ndockingbase: " + (dockingBase != null ? (dockingBase.equals(homeBase) ? "at home" : dockingBase.getName()) : "none");
+        StringBuilder sb = new StringBuilder();
+        try {
+            appendTo(sb);
+        } catch (IOException e) {
+            // a StringBuilder does not throw
+            throw new UncheckedIOException(e);
+        }
+        return sb.toString();
+    }
+
+    // toString, piece by piece to any output
+    void appendTo(Appendable out) throws IOException {
+        SpaceBase homeBase = getHomeBase();
+        SpaceBase dockingBase = getDockingBase();
+        out.append("SpaceShip id ").append(Long.toString(store.id(slot)))
+            .append(", position ").append(Integer.toString(getPosX()))
+            .append("/").append(Integer.toString(getPosY()))
+            .append(", fuel ").append(Double.toString(getFuel()))
+            .append("\nhomebase: ").append(homeBase != null ? homeBase.getName() : "none")
+            .append("\ndockingbase: ").append(dockingBase != null ? (dockingBase.equals(homeBase) ? "at home" : dockingBase.getName()) : "none");
     }
 }
@@ -0,0 +1,38 @@
+package at.spengergasse.domain;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+
+/**
+ * JFR event of {@link SpaceBase#moveShipTo}, including the wait for the locks.
+ */
+@Name("at.spengergasse.Transfer")
+@Label("Transfer")
+@Category("SpaceBase")
+@Description("A spaceship moves from one space base to another")
+@StackTrace(false)
+final class TransferEvent extends Event {
+
+    @Label("Ship Id")
+    long shipId;
+
+    @Label("From Base")
+    String fromBase;
+
+    @Label("To Base")
+    String toBase;
+
+    @Label("Distance")
+    double distance;
+
+    @Label("Fuel Delta")
+    double fuelDelta;
+
+    @Label("Status")
+    String status;
+}
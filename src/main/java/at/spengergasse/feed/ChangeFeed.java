@@ -0,0 +1,155 @@
+package at.spengergasse.feed;
+
+import at.spengergasse.domain.FleetListener;
+import at.spengergasse.domain.FleetListeners;
+import at.spengergasse.domain.SpaceBase;
+import at.spengergasse.domain.SpaceShip;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static at.spengergasse.foundation.Assert.isTrue;
+
+
+/**
+ * Publishes the changes of all spaceships as batches of {@link ShipEvent}s.
+ *
+ * The operations changing ships only put their events into a bounded queue
+ * and never wait for it. A thread of the feed takes the events from the
+ * queue, up to maxBatch at a time, and hands each batch to the subscribers,
+ * waiting for the slowest one to request more through its subscription. If
+ * the subscribers fall behind so far that the queue runs full, further events
+ * are dropped and counted (see {@link #dropped()}); a subscriber can then
+ * start over from arrangeShips.
+ *
+ * Batches are delivered in the order the changes happened. Each subscriber
+ * gets them on a thread of its own.
+ */
+public final class ChangeFeed implements FleetListener, Flow.Publisher<List<ShipEvent>>, AutoCloseable {
+
+    public static final int DEFAULT_CAPACITY = 64 * 1024;
+    public static final int DEFAULT_MAX_BATCH = 256;
+
+    private final BlockingQueue<ShipEvent> queue;
+    private final int maxBatch;
+    private final SubmissionPublisher<List<ShipEvent>> publisher;
+    private final LongAdder dropped = new LongAdder();
+    private final Thread publishing;
+    private volatile boolean closed;
+
+    private ChangeFeed(int capacity, int maxBatch, int subscriberBuffer) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.maxBatch = maxBatch;
+        this.publisher = new SubmissionPublisher<>(Executors.newVirtualThreadPerTaskExecutor(), subscriberBuffer);
+        this.publishing = Thread.ofPlatform().daemon().name("spacebase-feed").unstarted(this::publish);
+    }
+
+    public static ChangeFeed open() {
+        return open(DEFAULT_CAPACITY, DEFAULT_MAX_BATCH, Flow.defaultBufferSize());
+    }
+
+    /**
+     * @param capacity events kept for the subscribers before new ones are dropped
+     * @param maxBatch events per batch at most
+     * @param subscriberBuffer batches buffered per subscriber
+     */
+    public static ChangeFeed open(int capacity, int maxBatch, int subscriberBuffer) {
+        isTrue(capacity > 0, "capacity %d is not positive", capacity);
+        isTrue(maxBatch > 0, "maxBatch %d is not positive", maxBatch);
+        isTrue(subscriberBuffer > 0, "subscriberBuffer %d is not positive", subscriberBuffer);
+
+        ChangeFeed feed = new ChangeFeed(capacity, maxBatch, subscriberBuffer);
+        feed.publishing.start();
+        FleetListeners.add(feed);
+        return feed;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super List<ShipEvent>> subscriber) {
+        publisher.subscribe(subscriber);
+    }
+
+    /**
+     * @return the number of events dropped since the feed was opened
+     */
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    private void publish() {
+        while (!closed || !queue.isEmpty()) {
+            List<ShipEvent> batch = new ArrayList<>(maxBatch);
+            try {
+                ShipEvent first = closed ? queue.poll() : queue.take();
+                if (first == null)
+                    break;
+                batch.add(first);
+            } catch (InterruptedException e) {
+                // closed, hand out what is left
+                continue;
+            }
+            queue.drainTo(batch, maxBatch - 1);
+            // waits for subscribers which have not requested more yet, unless closed
+            publisher.offer(Collections.unmodifiableList(batch), closed ? 0L : Long.MAX_VALUE, TimeUnit.NANOSECONDS,
+                (subscriber, events) -> {
+                    dropped.add(events.size());
+                    return false;
+                });
+        }
+    }
+
+    private void offer(ShipEvent event) {
+        if (!queue.offer(event)) {
+            dropped.increment();
+        }
+    }
+
+
+    // FleetListener ---------------------------------------------------------------
+
+    @Override
+    public void docked(SpaceBase spaceBase, SpaceShip spaceship) {
+        offer(new ShipEvent.Docked(spaceship.getId(), spaceBase.getName()));
+    }
+
+    @Override
+    public void departed(SpaceBase spaceBase, SpaceShip spaceship) {
+        offer(new ShipEvent.Departed(spaceship.getId(), spaceBase.getName()));
+    }
+
+    @Override
+    public void built(SpaceBase spaceBase, SpaceShip spaceship) {
+        offer(new ShipEvent.Built(spaceship.getId(), spaceBase.getName()));
+    }
+
+    @Override
+    public void refuelled(SpaceShip spaceship, double amount) {
+        offer(new ShipEvent.Refuelled(spaceship.getId(), amount, spaceship.getFuel()));
+    }
+
+    @Override
+    public void moved(SpaceShip spaceship) {
+        offer(new ShipEvent.Moved(spaceship.getId(), spaceship.getPosX(), spaceship.getPosY(), spaceship.getFuel()));
+    }
+
+    /**
+     * Stops listening and hands the events still queued to the subscribers
+     * which have room for them, then completes the subscriptions.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        FleetListeners.remove(this);
+        closed = true;
+        publishing.interrupt();
+        publishing.join();
+        publisher.close();
+    }
+}
@@ -0,0 +1,33 @@
+package at.spengergasse.feed;
+
+
+/**
+ * A change of a spaceship as published by the {@link ChangeFeed}.
+ *
+ * Events carry the values at the time of the change, so they stay valid
+ * however late a subscriber looks at them.
+ */
+public sealed interface ShipEvent {
+
+    long shipId();
+
+    /** The spaceship got a berth at the base. */
+    record Docked(long shipId, String base) implements ShipEvent {
+    }
+
+    /** The spaceship left its berth at the base. */
+    record Departed(long shipId, String base) implements ShipEvent {
+    }
+
+    /** The spaceship was built at the base; a Docked event follows. */
+    record Built(long shipId, String base) implements ShipEvent {
+    }
+
+    /** The spaceship took in the amount of fuel and now has fuel. */
+    record Refuelled(long shipId, double amount, double fuel) implements ShipEvent {
+    }
+
+    /** The spaceship arrived at the position with the fuel left. */
+    record Moved(long shipId, int posX, int posY, double fuel) implements ShipEvent {
+    }
+}
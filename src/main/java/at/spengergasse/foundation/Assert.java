@@ -9,6 +9,11 @@ import java.util.function.Supplier;
  * Assertion utility class that assists in validating arguments.
  *
  * We wil use it for ints, longs, Strings, Objects, Collections, etc.
+ *
+ * The checks are split into a tiny success path, which the JIT inlines into
+ * the caller, and a separate failure method which builds the message. Passing
+ * checks therefore allocate nothing; messages with values use the template
+ * overloads (String.format syntax) instead of capturing lambdas.
  */
 
 public abstract class Assert {
@@ -19,7 +24,7 @@ public abstract class Assert {
     // public static Object isNotNull(Object value, String paramName) {
     public static <T> T isNotNull(T value, String paramName) {
         if (value == null)
-            throw new ApplicationException(STR."\{paramName} is null");
+            throw isNullFailure(paramName);
 
         return value;
     }
@@ -31,7 +36,7 @@ public abstract class Assert {
         isNotNull(value, paramName);
 
         if (value.isBlank())
-            throw new ApplicationException(STR."\{paramName} is blank");
+            throw isBlankFailure(paramName);
 
         return value;
     }
@@ -41,7 +46,31 @@ public abstract class Assert {
         isNotBlank(value, paramName);
 
         if (value.length() > maxLength)
-            throw new ApplicationException(STR."\{paramName} is greater than \{maxLength}");
+            throw maxLengthFailure(paramName, maxLength);
+
+        return value;
+    }
+
+
+    // Number Assertions -----------------------------------------------------------
+
+    public static int isNotNegative(int value, String paramName) {
+        if (value < 0)
+            throw isNegativeFailure(paramName, value);
+
+        return value;
+    }
+
+    public static long isNotNegative(long value, String paramName) {
+        if (value < 0)
+            throw isNegativeFailure(paramName, value);
+
+        return value;
+    }
+
+    public static double isNotNegative(double value, String paramName) {
+        if (!(value >= 0.0))
+            throw isNegativeFailure(paramName, value);
 
         return value;
     }
@@ -59,8 +88,64 @@ public abstract class Assert {
 
     // LAZY message evaluation:
     // Lazy means that the error message is only evaluated if the expression is false
+    // Careful: a lambda capturing variables is allocated on every call,
+    // prefer the template overloads below on hot paths
     public static void isTrue(boolean expression, Supplier<String> errorMsg) {
         if (!expression)
             throw new ApplicationException(errorMsg.get());
     }
+
+    // TEMPLATE message evaluation:
+    // The message is only formatted if the expression is false, the primitive
+    // arguments are not boxed before that
+    public static void isTrue(boolean expression, String errorMsg) {
+        if (!expression)
+            throw new ApplicationException(errorMsg);
+    }
+
+    public static void isTrue(boolean expression, String errorMsgTemplate, long arg) {
+        if (!expression)
+            throw templateFailure(errorMsgTemplate, arg);
+    }
+
+    public static void isTrue(boolean expression, String errorMsgTemplate, double arg) {
+        if (!expression)
+            throw templateFailure(errorMsgTemplate, arg);
+    }
+
+    public static void isTrue(boolean expression, String errorMsgTemplate, Object arg) {
+        if (!expression)
+            throw templateFailure(errorMsgTemplate, arg);
+    }
+
+    public static void isTrue(boolean expression, String errorMsgTemplate, long arg0, Object arg1) {
+        if (!expression)
+            throw templateFailure(errorMsgTemplate, arg0, arg1);
+    }
+
+
+
+    // Failures --------------------------------------------------------------------
+
+    // kept out of the checks above, so that only the cheap comparison gets inlined
+
+    private static ApplicationException isNullFailure(String paramName) {
+        return new ApplicationException(STR."\{paramName} is null");
+    }
+
+    private static ApplicationException isBlankFailure(String paramName) {
+        return new ApplicationException(STR."\{paramName} is blank");
+    }
+
+    private static ApplicationException maxLengthFailure(String paramName, int maxLength) {
+        return new ApplicationException(STR."\{paramName} is greater than \{maxLength}");
+    }
+
+    private static ApplicationException isNegativeFailure(String paramName, Object value) {
+        return new ApplicationException(STR."\{paramName} \{value} is negative");
+    }
+
+    private static ApplicationException templateFailure(String errorMsgTemplate, Object... args) {
+        return new ApplicationException(String.format(errorMsgTemplate, args));
+    }
 }
@@ -0,0 +1,61 @@
+package at.spengergasse.foundation;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static at.spengergasse.foundation.Assert.isTrue;
+
+
+/**
+ * Id allocator which reserves ids in blocks per thread.
+ *
+ * Each thread takes a whole block from the shared high-water mark and then
+ * hands out the ids of that block on its own, so the shared counter is only
+ * touched once per block and minting an id neither contends nor allocates.
+ *
+ * Ids are unique and ascending within a block, but ids of different threads
+ * interleave. Ids left over in a block are never handed out again.
+ */
+
+public class BlockIdAllocator implements IdAllocator {
+
+    public static final int DEFAULT_BLOCK_SIZE = 1024;
+
+    private final AtomicLong highWaterMark;
+    private final int blockSize;
+    private final ThreadLocal<Block> blocks = ThreadLocal.withInitial(Block::new);
+
+    public BlockIdAllocator(long firstId) {
+        this(firstId, DEFAULT_BLOCK_SIZE);
+    }
+
+    public BlockIdAllocator(long firstId, int blockSize) {
+        isTrue(blockSize > 0, "blockSize %d is not positive", blockSize);
+        this.highWaterMark = new AtomicLong(firstId);
+        this.blockSize = blockSize;
+    }
+
+    @Override
+    public long nextId() {
+        Block block = blocks.get();
+        if (block.next == block.limit) {
+            block.next = highWaterMark.getAndAdd(blockSize);
+            block.limit = block.next + blockSize;
+        }
+        return block.next++;
+    }
+
+    @Override
+    public long highWaterMark() {
+        return highWaterMark.get();
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    // the ids [next, limit) reserved by one thread
+    private static final class Block {
+        private long next;
+        private long limit;
+    }
+}
@@ -0,0 +1,22 @@
+package at.spengergasse.foundation;
+
+
+/**
+ * Source of unique ids.
+ *
+ * Implementations must be safe to call from several threads at once.
+ */
+
+public interface IdAllocator {
+
+    /**
+     * @return a new id which has not been handed out by this allocator before
+     */
+    long nextId();
+
+    /**
+     * @return the lowest id which has not been reserved yet; a new allocator
+     *         starting at this value will never hand out an id twice
+     */
+    long highWaterMark();
+}
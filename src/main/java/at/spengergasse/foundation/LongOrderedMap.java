@@ -0,0 +1,284 @@
+package at.spengergasse.foundation;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+
+/**
+ * Hash map keyed by primitive {@code long} which remembers insertion order.
+ *
+ * Lookup, insertion and removal are O(1); iterating {@link #values()} visits
+ * the entries in the order they were put into the map (like a LinkedHashMap,
+ * but without boxing the keys into {@code Long} objects).
+ *
+ * Not thread-safe.
+ */
+
+public class LongOrderedMap<V> {
+
+    private static final int NONE = -1;
+    private static final int MIN_CAPACITY = 8;
+
+    // hash table: long key -> entry index (open addressing, linear probing)
+    private long[] tableKeys;
+    private int[] tableEntries;
+    private int mask;
+
+    // entries: stored in insertion order as a doubly linked list
+    private long[] keys;
+    private Object[] values;
+    private int[] prev;
+    private int[] next;
+
+    private int head = NONE;
+    private int tail = NONE;
+    private int free = NONE;
+    private int used;
+    private int size;
+    private int modCount;
+
+    public LongOrderedMap() {
+        this(MIN_CAPACITY);
+    }
+
+    public LongOrderedMap(int expectedSize) {
+        allocate(Math.max(expectedSize, MIN_CAPACITY));
+    }
+
+
+    // Queries ---------------------------------------------------------------------
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(long key) {
+        return indexOf(key) != NONE;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        int entry = indexOf(key);
+        return entry != NONE ? (V) values[entry] : null;
+    }
+
+
+    // Modifications ---------------------------------------------------------------
+
+    /**
+     * Associates the value with the key. An existing key keeps its position
+     * in the iteration order.
+     *
+     * @return the previous value or null
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        int slot = slotOf(key);
+        int entry = tableEntries[slot];
+        if (entry != NONE) {
+            V previous = (V) values[entry];
+            values[entry] = value;
+            return previous;
+        }
+
+        if (free == NONE && used == keys.length) {
+            grow(size + 1);
+            slot = slotOf(key);
+        }
+
+        entry = newEntry(key, value);
+        tableKeys[slot] = key;
+        tableEntries[slot] = entry;
+        size++;
+        modCount++;
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        int slot = slotOf(key);
+        int entry = tableEntries[slot];
+        if (entry == NONE)
+            return null;
+
+        V previous = (V) values[entry];
+        deleteSlot(slot);
+        unlink(entry);
+        size--;
+        modCount++;
+        return previous;
+    }
+
+    public void clear() {
+        Arrays.fill(tableEntries, NONE);
+        Arrays.fill(values, 0, used, null);
+        head = tail = free = NONE;
+        used = size = 0;
+        modCount++;
+    }
+
+    /**
+     * Pre-sizes the map so that it can hold the given number of entries
+     * without rehashing.
+     */
+    public void ensureCapacity(int expectedSize) {
+        if (expectedSize > keys.length)
+            grow(expectedSize);
+    }
+
+
+    // Views -----------------------------------------------------------------------
+
+    /**
+     * Live, read-only view of the values in insertion order.
+     */
+    public Collection<V> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new ValueIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+
+    // Internals -------------------------------------------------------------------
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private int indexOf(long key) {
+        return tableEntries[slotOf(key)];
+    }
+
+    // returns the slot holding the key or the empty slot where it belongs
+    private int slotOf(long key) {
+        int slot = hash(key) & mask;
+        while (tableEntries[slot] != NONE && tableKeys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    // backward shift deletion keeps probe sequences intact without tombstones
+    private void deleteSlot(int slot) {
+        int gap = slot;
+        int current = slot;
+        while (true) {
+            current = (current + 1) & mask;
+            if (tableEntries[current] == NONE)
+                break;
+            int home = hash(tableKeys[current]) & mask;
+            boolean movable = gap <= current
+                ? (home <= gap || home > current)
+                : (home <= gap && home > current);
+            if (movable) {
+                tableKeys[gap] = tableKeys[current];
+                tableEntries[gap] = tableEntries[current];
+                gap = current;
+            }
+        }
+        tableEntries[gap] = NONE;
+    }
+
+    private int newEntry(long key, Object value) {
+        int entry;
+        if (free != NONE) {
+            entry = free;
+            free = next[entry];
+        } else {
+            entry = used++;
+        }
+        keys[entry] = key;
+        values[entry] = value;
+        prev[entry] = tail;
+        next[entry] = NONE;
+        if (tail != NONE) {
+            next[tail] = entry;
+        } else {
+            head = entry;
+        }
+        tail = entry;
+        return entry;
+    }
+
+    private void unlink(int entry) {
+        int p = prev[entry];
+        int n = next[entry];
+        if (p != NONE) next[p] = n; else head = n;
+        if (n != NONE) prev[n] = p; else tail = p;
+        values[entry] = null;
+        next[entry] = free;
+        free = entry;
+    }
+
+    private void allocate(int capacity) {
+        int tableSize = Integer.highestOneBit(Math.max(capacity * 2 - 1, MIN_CAPACITY * 2)) << 1;
+        tableKeys = new long[tableSize];
+        tableEntries = new int[tableSize];
+        Arrays.fill(tableEntries, NONE);
+        mask = tableSize - 1;
+        keys = new long[capacity];
+        values = new Object[capacity];
+        prev = new int[capacity];
+        next = new int[capacity];
+    }
+
+    // rebuilds table and entries compactly, preserving iteration order
+    private void grow(int minCapacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        int[] oldNext = next;
+        int entry = head;
+
+        allocate(Math.max(minCapacity, keys.length * 2));
+        head = tail = free = NONE;
+        used = 0;
+
+        while (entry != NONE) {
+            int newEntry = newEntry(oldKeys[entry], oldValues[entry]);
+            int slot = slotOf(oldKeys[entry]);
+            tableKeys[slot] = oldKeys[entry];
+            tableEntries[slot] = newEntry;
+            entry = oldNext[entry];
+        }
+    }
+
+    private class ValueIterator implements Iterator<V> {
+
+        private int current = head;
+        private final int expectedModCount = modCount;
+
+        @Override
+        public boolean hasNext() {
+            return current != NONE;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V next() {
+            if (current == NONE)
+                throw new NoSuchElementException();
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            V value = (V) values[current];
+            current = next[current];
+            return value;
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package at.spengergasse.foundation;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+
+/**
+ * Immutable sorted map keyed by primitive {@code long}.
+ *
+ * put and remove leave the map as it is and return a new version, which
+ * shares all but the O(log n) nodes on the changed path with the old one
+ * (an AVL tree with path copying). Every version can therefore be kept and
+ * read by any number of threads without locking, while newer versions are
+ * being made.
+ *
+ * {@link #values()} iterates the entries in ascending key order.
+ */
+public final class PersistentLongMap<V> {
+
+    private static final PersistentLongMap<?> EMPTY = new PersistentLongMap<>(null);
+
+    private final Node<V> root;
+
+    private PersistentLongMap(Node<V> root) {
+        this.root = root;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <V> PersistentLongMap<V> empty() {
+        return (PersistentLongMap<V>) EMPTY;
+    }
+
+
+    // Queries ---------------------------------------------------------------------
+
+    public int size() {
+        return size(root);
+    }
+
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    public boolean containsKey(long key) {
+        return find(key) != null;
+    }
+
+    public V get(long key) {
+        Node<V> node = find(key);
+        return node != null ? node.value : null;
+    }
+
+    private Node<V> find(long key) {
+        Node<V> node = root;
+        while (node != null) {
+            if (key < node.key) {
+                node = node.left;
+            } else if (key > node.key) {
+                node = node.right;
+            } else {
+                return node;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the values in ascending key order
+     */
+    public Collection<V> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<V> iterator() {
+                return valuesFrom(0);
+            }
+
+            @Override
+            public int size() {
+                return PersistentLongMap.this.size();
+            }
+        };
+    }
+
+    /**
+     * @return the values with a key greater than the given one, in ascending
+     *         key order
+     */
+    public Iterator<V> valuesAfter(long key) {
+        InOrder<V> values = new InOrder<>(root);
+        Node<V> node = root;
+        while (node != null) {
+            if (node.key > key) {
+                values.path[values.depth++] = node;
+                node = node.left;
+            } else {
+                node = node.right;
+            }
+        }
+        return values;
+    }
+
+    /**
+     * @return the values from the given position on (0 is the smallest key),
+     *         in ascending key order; finds the position in O(log n)
+     */
+    public Iterator<V> valuesFrom(int index) {
+        InOrder<V> values = new InOrder<>(root);
+        Node<V> node = root;
+        while (node != null) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                values.path[values.depth++] = node;
+                node = node.left;
+            } else if (index == leftSize) {
+                values.path[values.depth++] = node;
+                break;
+            } else {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+        return values;
+    }
+
+
+    // Versions --------------------------------------------------------------------
+
+    /**
+     * @return a map with the key mapped to the value, this map if it was already
+     */
+    public PersistentLongMap<V> put(long key, V value) {
+        Node<V> changed = put(root, key, value);
+        return changed != root ? new PersistentLongMap<>(changed) : this;
+    }
+
+    /**
+     * @return a map without the key, this map if it did not contain the key
+     */
+    public PersistentLongMap<V> remove(long key) {
+        Node<V> changed = remove(root, key);
+        return changed != root ? new PersistentLongMap<>(changed) : this;
+    }
+
+    private static <V> Node<V> put(Node<V> node, long key, V value) {
+        if (node == null)
+            return new Node<>(key, value, null, null);
+
+        if (key < node.key) {
+            Node<V> left = put(node.left, key, value);
+            return left != node.left ? balance(node.key, node.value, left, node.right) : node;
+        } else if (key > node.key) {
+            Node<V> right = put(node.right, key, value);
+            return right != node.right ? balance(node.key, node.value, node.left, right) : node;
+        } else {
+            return node.value != value ? new Node<>(key, value, node.left, node.right) : node;
+        }
+    }
+
+    private static <V> Node<V> remove(Node<V> node, long key) {
+        if (node == null)
+            return null;
+
+        if (key < node.key) {
+            Node<V> left = remove(node.left, key);
+            return left != node.left ? balance(node.key, node.value, left, node.right) : node;
+        } else if (key > node.key) {
+            Node<V> right = remove(node.right, key);
+            return right != node.right ? balance(node.key, node.value, node.left, right) : node;
+        } else if (node.left == null) {
+            return node.right;
+        } else if (node.right == null) {
+            return node.left;
+        } else {
+            // the next larger key takes the place of the removed one
+            Node<V> next = node.right;
+            while (next.left != null) {
+                next = next.left;
+            }
+            return balance(next.key, next.value, node.left, removeFirst(node.right));
+        }
+    }
+
+    private static <V> Node<V> removeFirst(Node<V> node) {
+        if (node.left == null)
+            return node.right;
+        return balance(node.key, node.value, removeFirst(node.left), node.right);
+    }
+
+    // a node over the subtrees, rotated if their heights differ by more than one
+    private static <V> Node<V> balance(long key, V value, Node<V> left, Node<V> right) {
+        int leftHeight = height(left);
+        int rightHeight = height(right);
+        if (leftHeight > rightHeight + 1) {
+            if (height(left.left) >= height(left.right)) {
+                return new Node<>(left.key, left.value, left.left, new Node<>(key, value, left.right, right));
+            }
+            Node<V> middle = left.right;
+            return new Node<>(middle.key, middle.value,
+                new Node<>(left.key, left.value, left.left, middle.left),
+                new Node<>(key, value, middle.right, right));
+        }
+        if (rightHeight > leftHeight + 1) {
+            if (height(right.right) >= height(right.left)) {
+                return new Node<>(right.key, right.value, new Node<>(key, value, left, right.left), right.right);
+            }
+            Node<V> middle = right.left;
+            return new Node<>(middle.key, middle.value,
+                new Node<>(key, value, left, middle.left),
+                new Node<>(right.key, right.value, middle.right, right.right));
+        }
+        return new Node<>(key, value, left, right);
+    }
+
+    private static int height(Node<?> node) {
+        return node != null ? node.height : 0;
+    }
+
+    private static int size(Node<?> node) {
+        return node != null ? node.size : 0;
+    }
+
+
+    // Tree ------------------------------------------------------------------------
+
+    private static final class Node<V> {
+
+        private final long key;
+        private final V value;
+        private final Node<V> left;
+        private final Node<V> right;
+        private final int height;
+        private final int size;
+
+        private Node(long key, V value, Node<V> left, Node<V> right) {
+            this.key = key;
+            this.value = value;
+            this.left = left;
+            this.right = right;
+            this.height = Math.max(height(left), height(right)) + 1;
+            this.size = size(left) + size(right) + 1;
+        }
+    }
+
+    private static final class InOrder<V> implements Iterator<V> {
+
+        // the path to the next node, deepest last
+        private final Node<?>[] path;
+        private int depth;
+
+        // starts out empty, the caller fills in the path to the first node
+        private InOrder(Node<V> root) {
+            path = new Node<?>[height(root)];
+        }
+
+        private void descend(Node<V> node) {
+            while (node != null) {
+                path[depth++] = node;
+                node = node.left;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return depth > 0;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V next() {
+            if (depth == 0)
+                throw new NoSuchElementException();
+            Node<V> node = (Node<V>) path[--depth];
+            descend(node.right);
+            return node.value;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package at.spengergasse.metrics;
+
+import java.util.concurrent.atomic.DoubleAdder;
+
+
+/**
+ * All metrics of one space base.
+ */
+public class BaseMetrics {
+
+    private final int baseIndex;
+    private volatile String baseName;
+    private final OperationMetrics[] operations = new OperationMetrics[Operation.values().length];
+    private final DoubleAdder fuelBurned = new DoubleAdder();
+
+    BaseMetrics(int baseIndex, String baseName) {
+        this.baseIndex = baseIndex;
+        this.baseName = baseName;
+        for (int i = 0; i < operations.length; i++) {
+            operations[i] = new OperationMetrics();
+        }
+    }
+
+    /**
+     * @return the index of the base, {@link Metrics#NO_BASE_INDEX} for
+     *         spaceships which are not docked anywhere
+     */
+    public int getBaseIndex() {
+        return baseIndex;
+    }
+
+    public String getBaseName() {
+        return baseName;
+    }
+
+    // only writes if the base was renamed, to keep the hot path read-only
+    void rename(String baseName) {
+        if (!this.baseName.equals(baseName)) {
+            this.baseName = baseName;
+        }
+    }
+
+    public OperationMetrics get(Operation operation) {
+        return operations[operation.ordinal()];
+    }
+
+    public double getFuelBurned() {
+        return fuelBurned.sum();
+    }
+
+    void addFuelBurned(double fuel) {
+        fuelBurned.add(fuel);
+    }
+}
@@ -0,0 +1,67 @@
+package at.spengergasse.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Latency histogram with power-of-two buckets in nanoseconds (1 ns up to about
+ * 8.6 s, anything longer in the last, unbounded bucket), recorded with striped counters so that concurrent updates do not
+ * contend.
+ */
+public class LatencyHistogram {
+
+    static final int BUCKETS = 35;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder sumNanos = new LongAdder();
+
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long nanos) {
+        record(nanos, 1);
+    }
+
+    /**
+     * Records the given number of calls which took the given time each.
+     */
+    public void record(long nanos, int count) {
+        if (nanos < 0)
+            nanos = 0;
+        buckets[bucketOf(nanos)].add(count);
+        sumNanos.add(nanos * count);
+    }
+
+    /**
+     * @return the upper bound (inclusive) of the bucket in nanoseconds,
+     *         the last bucket is unbounded
+     */
+    static long upperBoundNanos(int bucket) {
+        return bucket < BUCKETS - 1 ? 1L << bucket : Long.MAX_VALUE;
+    }
+
+    // smallest bucket whose upper bound 2^bucket is >= nanos
+    static int bucketOf(long nanos) {
+        int bucket = nanos <= 1 ? 0 : 64 - Long.numberOfLeadingZeros(nanos - 1);
+        return Math.min(bucket, BUCKETS - 1);
+    }
+
+    long count(int bucket) {
+        return buckets[bucket].sum();
+    }
+
+    public long count() {
+        long count = 0;
+        for (LongAdder bucket : buckets) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    public long sumNanos() {
+        return sumNanos.sum();
+    }
+}
@@ -0,0 +1,129 @@
+package at.spengergasse.metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+
+/**
+ * In-process metrics of the space base operations, keyed by operation and
+ * space base. Bases are told apart by their index, which is unique, so two
+ * bases with the same name are still counted separately; the name is only
+ * used to label them.
+ *
+ * Metrics are off by default. While they are off, the instrumented code only
+ * reads one volatile flag:
+ *
+ * <pre>
+ * long start = Metrics.start();
+ * ...
+ * Metrics.record(Operation.DOCKING, index, name, start, succeeded);
+ * </pre>
+ */
+public abstract class Metrics {
+
+    /** Base index and name used for spaceships which are not docked anywhere. */
+    public static final int NO_BASE_INDEX = -1;
+    public static final String NO_BASE = "none";
+
+    private static volatile boolean enabled;
+
+    // metrics by base index + 1, the ones of ships docked nowhere in slot 0
+    private static final Object basesLock = new Object();
+    private static volatile BaseMetrics[] bases = new BaseMetrics[64];
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        Metrics.enabled = enabled;
+    }
+
+    /**
+     * Drops everything recorded so far.
+     */
+    public static void reset() {
+        synchronized (basesLock) {
+            bases = new BaseMetrics[64];
+        }
+    }
+
+    /**
+     * @return the start time for {@link #record}, or 0 if metrics are off
+     */
+    public static long start() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    public static void record(Operation operation, int baseIndex, String baseName, long start, boolean succeeded) {
+        if (start == 0L)
+            return;
+
+        long nanos = System.nanoTime() - start;
+        forBase(baseIndex, baseName).get(operation).record(nanos, succeeded);
+    }
+
+    /**
+     * Records a batch of calls which took the given time all together, each of
+     * them with an equal share of it.
+     */
+    public static void record(Operation operation, int baseIndex, String baseName, long start, int calls) {
+        if (start == 0L || calls == 0)
+            return;
+
+        long nanos = (System.nanoTime() - start) / calls;
+        forBase(baseIndex, baseName).get(operation).record(nanos, calls);
+    }
+
+    public static void recordFuelBurned(int baseIndex, String baseName, double fuel) {
+        if (!enabled)
+            return;
+
+        forBase(baseIndex, baseName).addFuelBurned(fuel);
+    }
+
+    /**
+     * @return the metrics of the base with the given index, labelled with the
+     *         given name (a base may have been renamed since)
+     */
+    public static BaseMetrics forBase(int baseIndex, String baseName) {
+        int slot = baseIndex + 1;
+        BaseMetrics[] current = bases;
+        BaseMetrics metrics = slot < current.length ? current[slot] : null;
+        if (metrics == null) {
+            metrics = create(slot, baseIndex, baseName);
+        }
+        metrics.rename(baseIndex == NO_BASE_INDEX ? NO_BASE : baseName);
+        return metrics;
+    }
+
+    private static BaseMetrics create(int slot, int baseIndex, String baseName) {
+        synchronized (basesLock) {
+            BaseMetrics[] current = bases;
+            if (slot < current.length && current[slot] != null)
+                return current[slot];
+
+            if (slot >= current.length) {
+                current = Arrays.copyOf(current, Math.max(slot + 1, current.length * 2));
+            }
+            BaseMetrics metrics = new BaseMetrics(baseIndex, baseIndex == NO_BASE_INDEX ? NO_BASE : baseName);
+            current[slot] = metrics;
+            // volatile write publishes the new entry
+            bases = current;
+            return metrics;
+        }
+    }
+
+    public static Collection<BaseMetrics> all() {
+        List<BaseMetrics> all = new ArrayList<>();
+        for (BaseMetrics metrics : bases) {
+            if (metrics != null) {
+                all.add(metrics);
+            }
+        }
+        return Collections.unmodifiableCollection(all);
+    }
+}
@@ -0,0 +1,24 @@
+package at.spengergasse.metrics;
+
+
+/**
+ * The operations which are measured, with the name used in the exported metrics.
+ */
+public enum Operation {
+
+    DOCKING("docking"),
+    MOVE_SHIP_TO("moveShipTo"),
+    BUILD_SHIP("buildShip"),
+    REFUEL("refuel"),
+    MOVE_TO("moveTo");
+
+    private final String metricName;
+
+    Operation(String metricName) {
+        this.metricName = metricName;
+    }
+
+    public String getMetricName() {
+        return metricName;
+    }
+}
@@ -0,0 +1,40 @@
+package at.spengergasse.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Calls, failures and latency of one operation at one space base.
+ */
+public class OperationMetrics {
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    void record(long nanos, boolean succeeded) {
+        calls.increment();
+        if (!succeeded) {
+            failures.increment();
+        }
+        latency.record(nanos);
+    }
+
+    // calls which all succeeded and took the given time each
+    void record(long nanos, int count) {
+        calls.add(count);
+        latency.record(nanos, count);
+    }
+
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+}
@@ -0,0 +1,113 @@
+package at.spengergasse.metrics;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+
+/**
+ * Writes the recorded metrics in the Prometheus text exposition format.
+ *
+ * Every sample is labelled with the name and the index of its base, as names
+ * need not be unique.
+ */
+public abstract class PrometheusFormat {
+
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    public static String write() {
+        StringBuilder sb = new StringBuilder();
+        write(sb);
+        return sb.toString();
+    }
+
+    public static void write(Appendable out) {
+        try {
+            List<BaseMetrics> bases = new ArrayList<>(Metrics.all());
+            bases.sort(Comparator.comparing(BaseMetrics::getBaseName).thenComparingInt(BaseMetrics::getBaseIndex));
+
+            header(out, "spacebase_operations_total", "counter", "Calls per operation and space base.");
+            for (BaseMetrics base : bases) {
+                for (Operation operation : Operation.values()) {
+                    OperationMetrics metrics = base.get(operation);
+                    if (metrics.getCalls() > 0)
+                        sample(out, "spacebase_operations_total", operation, base, null, metrics.getCalls());
+                }
+            }
+
+            header(out, "spacebase_operation_failures_total", "counter", "Failed calls per operation and space base.");
+            for (BaseMetrics base : bases) {
+                for (Operation operation : Operation.values()) {
+                    OperationMetrics metrics = base.get(operation);
+                    if (metrics.getCalls() > 0)
+                        sample(out, "spacebase_operation_failures_total", operation, base, null, metrics.getFailures());
+                }
+            }
+
+            header(out, "spacebase_operation_duration_seconds", "histogram", "Latency per operation and space base.");
+            for (BaseMetrics base : bases) {
+                for (Operation operation : Operation.values()) {
+                    OperationMetrics metrics = base.get(operation);
+                    if (metrics.getCalls() > 0)
+                        histogram(out, operation, base, metrics.getLatency());
+                }
+            }
+
+            header(out, "spacebase_fuel_burned_total", "counter", "Fuel burned by spaceships moving away from a space base.");
+            for (BaseMetrics base : bases) {
+                if (base.getFuelBurned() > 0)
+                    sample(out, "spacebase_fuel_burned_total", null, base, null, base.getFuelBurned());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void histogram(Appendable out, Operation operation, BaseMetrics base, LatencyHistogram latency) throws IOException {
+        long cumulative = 0;
+        for (int bucket = 0; bucket < LatencyHistogram.BUCKETS - 1; bucket++) {
+            cumulative += latency.count(bucket);
+            String le = Double.toString(LatencyHistogram.upperBoundNanos(bucket) / NANOS_PER_SECOND);
+            sample(out, "spacebase_operation_duration_seconds_bucket", operation, base, le, cumulative);
+        }
+        cumulative += latency.count(LatencyHistogram.BUCKETS - 1);
+        sample(out, "spacebase_operation_duration_seconds_bucket", operation, base, "+Inf", cumulative);
+        sample(out, "spacebase_operation_duration_seconds_sum", operation, base, null, latency.sumNanos() / NANOS_PER_SECOND);
+        sample(out, "spacebase_operation_duration_seconds_count", operation, base, null, cumulative);
+    }
+
+    private static void header(Appendable out, String name, String type, String help) throws IOException {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(Appendable out, String name, Operation operation, BaseMetrics base, String le, Object value) throws IOException {
+        out.append(name).append('{');
+        if (operation != null) {
+            out.append("operation=\"").append(operation.getMetricName()).append("\",");
+        }
+        out.append("base=\"");
+        escape(out, base.getBaseName());
+        out.append("\",base_index=\"").append(String.valueOf(base.getBaseIndex())).append('"');
+        if (le != null) {
+            out.append(",le=\"").append(le).append('"');
+        }
+        out.append("} ").append(String.valueOf(value)).append('\n');
+    }
+
+    private static void escape(Appendable out, String value) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> out.append("\\\\");
+                case '"' -> out.append("\\\"");
+                case '\n' -> out.append("\\n");
+                default -> out.append(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package at.spengergasse.query;
+
+import at.spengergasse.domain.FleetListener;
+import at.spengergasse.domain.FleetListeners;
+import at.spengergasse.domain.SpaceBase;
+import at.spengergasse.domain.SpaceShip;
+import at.spengergasse.foundation.LongOrderedMap;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static at.spengergasse.foundation.Assert.isNotNull;
+
+
+/**
+ * Secondary indexes over all spaceships for {@link ShipQuery}s: by fuel, by
+ * home base, by docking base and by x position.
+ *
+ * The indexes listen to every change of a ship (docking, moves, refuelling,
+ * setDockingBase) and are up to date once the change is done. A query is
+ * answered from the index with the fewest candidates: the planner steps
+ * through the candidates of all indexes that apply, one of each in turn,
+ * until the first index runs out. That index is the most selective one, and
+ * finding it costs no more than walking it once per applicable index. The
+ * other conditions are checked on its candidates.
+ *
+ * Safe to use from several threads; queries run concurrently, changes are
+ * exclusive.
+ */
+public final class ShipIndex implements FleetListener, AutoCloseable {
+
+    /** The index a query was answered from. */
+    public enum Access {
+        FUEL, HOME_BASE, DOCKING_BASE, POSITION, SCAN
+    }
+
+    private static final Comparator<Entry> BY_FUEL =
+        Comparator.comparingDouble(Entry::fuel).thenComparingLong(Entry::id);
+    private static final Comparator<Entry> BY_X =
+        Comparator.comparingInt(Entry::posX).thenComparingLong(Entry::id);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final LongOrderedMap<Entry> entries = new LongOrderedMap<>();
+    private final TreeSet<Entry> byFuel = new TreeSet<>(BY_FUEL);
+    private final TreeSet<Entry> byX = new TreeSet<>(BY_X);
+    private final Map<SpaceBase, LongOrderedMap<Entry>> byHomeBase = new HashMap<>();
+    // undocked ships under null
+    private final Map<SpaceBase, LongOrderedMap<Entry>> byDockingBase = new HashMap<>();
+
+    private ShipIndex() {
+    }
+
+    /**
+     * Starts indexing. Ships docked at the given bases are indexed right away,
+     * all other ships once they change.
+     */
+    public static ShipIndex open(Collection<SpaceBase> spaceBases) {
+        isNotNull(spaceBases, "spaceBases");
+
+        ShipIndex index = new ShipIndex();
+        // listening first, so no change gets lost while the bases are read
+        FleetListeners.add(index);
+        for (SpaceBase spaceBase : spaceBases) {
+            for (SpaceShip spaceship : spaceBase.arrangeShips()) {
+                index.put(entryOf(spaceship), false);
+            }
+        }
+        return index;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+
+    // Queries ---------------------------------------------------------------------
+
+    /**
+     * @return the ships matching the query, ordered by id
+     */
+    public List<SpaceShip> find(ShipQuery query) {
+        isNotNull(query, "query");
+
+        lock.readLock().lock();
+        try {
+            List<Entry> candidates = new ArrayList<>();
+            plan(query, candidates);
+            List<SpaceShip> result = new ArrayList<>();
+            candidates.sort(Comparator.comparingLong(Entry::id));
+            for (Entry entry : candidates) {
+                if (entry.matches(query)) {
+                    result.add(entry.spaceship);
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the index the query would be answered from
+     */
+    public Access explain(ShipQuery query) {
+        isNotNull(query, "query");
+
+        lock.readLock().lock();
+        try {
+            return plan(query, new ArrayList<>());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // collects the candidates of the most selective index
+    private Access plan(ShipQuery query, List<Entry> candidates) {
+        List<Access> accesses = new ArrayList<>(4);
+        List<Iterator<Entry>> sources = new ArrayList<>(4);
+        if (query.hasFuelRange()) {
+            accesses.add(Access.FUEL);
+            sources.add(fuelRange(query).iterator());
+        }
+        if (query.homeBase != null) {
+            accesses.add(Access.HOME_BASE);
+            sources.add(values(byHomeBase.get(query.homeBase)));
+        }
+        if (query.dockingBase != null) {
+            accesses.add(Access.DOCKING_BASE);
+            sources.add(values(byDockingBase.get(query.dockingBase)));
+        }
+        if (query.box != null) {
+            accesses.add(Access.POSITION);
+            sources.add(xRange(query).iterator());
+        }
+        if (sources.isEmpty()) {
+            candidates.addAll(entries.values());
+            return Access.SCAN;
+        }
+
+        // one step of each source in turn, the first one to run out wins
+        List<List<Entry>> taken = new ArrayList<>(sources.size());
+        for (int s = 0; s < sources.size(); s++) {
+            taken.add(new ArrayList<>());
+        }
+        while (true) {
+            for (int s = 0; s < sources.size(); s++) {
+                Iterator<Entry> source = sources.get(s);
+                if (!source.hasNext()) {
+                    candidates.addAll(taken.get(s));
+                    return accesses.get(s);
+                }
+                taken.get(s).add(source.next());
+            }
+        }
+    }
+
+    private NavigableSet<Entry> fuelRange(ShipQuery query) {
+        Entry from = new Entry(Long.MIN_VALUE, null, query.minFuel, 0, 0, null, null);
+        Entry to = new Entry(Long.MIN_VALUE, null, query.maxFuel, 0, 0, null, null);
+        if (BY_FUEL.compare(from, to) >= 0)
+            return new TreeSet<>(BY_FUEL);
+        return byFuel.subSet(from, true, to, false);
+    }
+
+    private NavigableSet<Entry> xRange(ShipQuery query) {
+        Entry from = new Entry(Long.MIN_VALUE, null, 0.0, query.box[0], 0, null, null);
+        Entry to = new Entry(Long.MAX_VALUE, null, 0.0, query.box[2], 0, null, null);
+        return byX.subSet(from, true, to, true);
+    }
+
+    private static Iterator<Entry> values(LongOrderedMap<Entry> entries) {
+        return entries != null ? entries.values().iterator() : List.<Entry>of().iterator();
+    }
+
+
+    // FleetListener ---------------------------------------------------------------
+
+    @Override
+    public void shipChanged(SpaceShip spaceship) {
+        put(entryOf(spaceship), true);
+    }
+
+    private static Entry entryOf(SpaceShip spaceship) {
+        return new Entry(spaceship.getId(), spaceship, spaceship.getFuel(), spaceship.getPosX(),
+            spaceship.getPosY(), spaceship.getHomeBase(), spaceship.getDockingBase());
+    }
+
+    // without replace, as in the initial pass of open: an entry put for a change
+    // since the index listens is at least as recent as the values read there
+    private void put(Entry entry, boolean replace) {
+        lock.writeLock().lock();
+        try {
+            if (!replace && entries.containsKey(entry.id))
+                return;
+            Entry old = entries.put(entry.id, entry);
+            if (old != null) {
+                byFuel.remove(old);
+                byX.remove(old);
+                remove(byHomeBase, old.homeBase, old.id);
+                remove(byDockingBase, old.dockingBase, old.id);
+            }
+            byFuel.add(entry);
+            byX.add(entry);
+            byHomeBase.computeIfAbsent(entry.homeBase, spaceBase -> new LongOrderedMap<>()).put(entry.id, entry);
+            byDockingBase.computeIfAbsent(entry.dockingBase, spaceBase -> new LongOrderedMap<>()).put(entry.id, entry);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void remove(Map<SpaceBase, LongOrderedMap<Entry>> index, SpaceBase spaceBase, long id) {
+        LongOrderedMap<Entry> entries = index.get(spaceBase);
+        entries.remove(id);
+        if (entries.isEmpty()) {
+            index.remove(spaceBase);
+        }
+    }
+
+    @Override
+    public void close() {
+        FleetListeners.remove(this);
+    }
+
+    // the indexed values of a ship, as of its last change
+    private record Entry(long id, SpaceShip spaceship, double fuel, int posX, int posY,
+                         SpaceBase homeBase, SpaceBase dockingBase) {
+
+        private boolean matches(ShipQuery query) {
+            if (fuel < query.minFuel || fuel >= query.maxFuel)
+                return false;
+            if (query.homeBase != null && homeBase != query.homeBase)
+                return false;
+            if (query.dockingBase != null && dockingBase != query.dockingBase)
+                return false;
+            if (query.dockedElsewhere && (dockingBase == null || dockingBase == homeBase))
+                return false;
+            return query.box == null
+                || (posX >= query.box[0] && posY >= query.box[1] && posX <= query.box[2] && posY <= query.box[3]);
+        }
+    }
+}
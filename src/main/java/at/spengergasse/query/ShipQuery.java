@@ -0,0 +1,110 @@
+package at.spengergasse.query;
+
+import at.spengergasse.domain.SpaceBase;
+
+import static at.spengergasse.foundation.Assert.isNotNull;
+import static at.spengergasse.foundation.Assert.isTrue;
+
+
+/**
+ * A conjunction of conditions on spaceships, run by {@link ShipIndex#find}.
+ *
+ * Queries are immutable; every condition returns a new query, e.g. the ships
+ * low on fuel from a base which are docked somewhere else:
+ *
+ * <pre>
+ * ShipQuery.all().fuelBelow(200.0).homeBase(earth).dockedElsewhere()
+ * </pre>
+ */
+public final class ShipQuery {
+
+    private static final ShipQuery ALL = new ShipQuery(
+        Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, null, null, false, null);
+
+    final double minFuel;
+    // exclusive
+    final double maxFuel;
+    final SpaceBase homeBase;
+    final SpaceBase dockingBase;
+    final boolean dockedElsewhere;
+    // minX, minY, maxX, maxY, all inclusive; null for anywhere
+    final int[] box;
+
+    private ShipQuery(double minFuel, double maxFuel, SpaceBase homeBase, SpaceBase dockingBase,
+                      boolean dockedElsewhere, int[] box) {
+        this.minFuel = minFuel;
+        this.maxFuel = maxFuel;
+        this.homeBase = homeBase;
+        this.dockingBase = dockingBase;
+        this.dockedElsewhere = dockedElsewhere;
+        this.box = box;
+    }
+
+    /**
+     * @return the query all ships match
+     */
+    public static ShipQuery all() {
+        return ALL;
+    }
+
+    /**
+     * Fuel at least min and below max.
+     */
+    public ShipQuery fuelBetween(double min, double max) {
+        return new ShipQuery(Math.max(minFuel, min), Math.min(maxFuel, max), homeBase, dockingBase, dockedElsewhere, box);
+    }
+
+    public ShipQuery fuelBelow(double max) {
+        return fuelBetween(Double.NEGATIVE_INFINITY, max);
+    }
+
+    public ShipQuery homeBase(SpaceBase spaceBase) {
+        return new ShipQuery(minFuel, maxFuel, isNotNull(spaceBase, "spaceBase"), dockingBase, dockedElsewhere, box);
+    }
+
+    public ShipQuery dockedAt(SpaceBase spaceBase) {
+        return new ShipQuery(minFuel, maxFuel, homeBase, isNotNull(spaceBase, "spaceBase"), dockedElsewhere, box);
+    }
+
+    /**
+     * Docked at a base other than the home base.
+     */
+    public ShipQuery dockedElsewhere() {
+        return new ShipQuery(minFuel, maxFuel, homeBase, dockingBase, true, box);
+    }
+
+    /**
+     * Positioned within the box, bounds included.
+     */
+    public ShipQuery within(int minX, int minY, int maxX, int maxY) {
+        isTrue(minX <= maxX, "minX %d is greater than maxX", minX);
+        isTrue(minY <= maxY, "minY %d is greater than maxY", minY);
+        return new ShipQuery(minFuel, maxFuel, homeBase, dockingBase, dockedElsewhere, new int[] {minX, minY, maxX, maxY});
+    }
+
+    boolean hasFuelRange() {
+        return minFuel != Double.NEGATIVE_INFINITY || maxFuel != Double.POSITIVE_INFINITY;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("ShipQuery");
+        if (hasFuelRange()) {
+            sb.append(" fuel [").append(minFuel).append(", ").append(maxFuel).append(")");
+        }
+        if (homeBase != null) {
+            sb.append(" homeBase '").append(homeBase.getName()).append("'");
+        }
+        if (dockingBase != null) {
+            sb.append(" dockedAt '").append(dockingBase.getName()).append("'");
+        }
+        if (dockedElsewhere) {
+            sb.append(" dockedElsewhere");
+        }
+        if (box != null) {
+            sb.append(" within ").append(box[0]).append("/").append(box[1])
+                .append("-").append(box[2]).append("/").append(box[3]);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,218 @@
+package at.spengergasse.server;
+
+import at.spengergasse.ApplicationException;
+import at.spengergasse.domain.OperationStatus;
+import at.spengergasse.domain.ShipDirectory;
+import at.spengergasse.domain.SpaceBase;
+import at.spengergasse.domain.SpaceShip;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static at.spengergasse.foundation.Assert.isNotNull;
+
+
+/**
+ * Lets clients drive a set of space bases over a loopback socket.
+ *
+ * The protocol is line based (ASCII, one request per line, tokens separated
+ * by a single space). Bases are addressed by their position in the list the
+ * server was started with, ships by their id:
+ *
+ * <pre>
+ * docking &lt;base&gt; &lt;id&gt;                 -> OK | ERR &lt;status&gt;
+ * moveShipTo &lt;base&gt; &lt;id&gt; &lt;toBase&gt;    -> OK | ERR &lt;status&gt;
+ * moveShip &lt;id&gt; &lt;toBase&gt;              -> OK | ERR &lt;status&gt;
+ * buildShip &lt;base&gt;                     -> OK &lt;id&gt;
+ * arrangeShips &lt;base&gt;                  -> OK [&lt;id&gt; ...]
+ * refuel &lt;base&gt; &lt;id&gt; &lt;amount&gt;        -> OK | ERR &lt;status&gt;
+ * </pre>
+ *
+ * The status is an {@link OperationStatus} name or one of UNKNOWN_BASE,
+ * UNKNOWN_COMMAND and BAD_REQUEST. docking and moveShip find the ship
+ * wherever it is docked (see {@link ShipDirectory}; only ships of the default
+ * store the server was started with), refuel only at the given base. docking fails with ALREADY_DOCKED for a ship docked at
+ * another base; moveShip takes it there instead.
+ *
+ * Each connection is served by its own virtual thread. Requests may be
+ * pipelined: the server answers them in order and only flushes once no more
+ * requests are waiting, so a batch of requests costs one write.
+ */
+public class CommandServer implements AutoCloseable {
+
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ServerSocket serverSocket;
+    private final List<SpaceBase> bases;
+    private final ShipDirectory directory = SpaceShip.getDefaultStore().directory();
+    private final ExecutorService connections = Executors.newVirtualThreadPerTaskExecutor();
+    private final Set<Socket> sockets = ConcurrentHashMap.newKeySet();
+
+    private CommandServer(ServerSocket serverSocket, List<SpaceBase> bases) {
+        this.serverSocket = serverSocket;
+        this.bases = bases;
+    }
+
+    /**
+     * @param port the port to listen on, 0 picks a free one
+     */
+    public static CommandServer start(int port, List<SpaceBase> bases) throws IOException {
+        isNotNull(bases, "bases");
+
+        ServerSocket serverSocket = new ServerSocket(port, 0, InetAddress.getLoopbackAddress());
+        CommandServer server = new CommandServer(serverSocket, List.copyOf(bases));
+        Thread.ofVirtual().name("spacebase-commands").start(server::accept);
+        return server;
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                sockets.add(socket);
+                connections.execute(() -> serve(socket));
+            } catch (IOException e) {
+                // closed
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket) {
+            socket.setTcpNoDelay(true);
+            BufferedReader in = new BufferedReader(
+                new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII), BUFFER_SIZE);
+            Writer out = new BufferedWriter(
+                new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII), BUFFER_SIZE);
+            String line;
+            while ((line = in.readLine()) != null) {
+                execute(line, out);
+                out.write('\n');
+                // answer a pipelined batch at once
+                if (!in.ready()) {
+                    out.flush();
+                }
+            }
+        } catch (SocketException e) {
+            // the client went away or the server is closed
+        } catch (IOException e) {
+            // nothing left to answer to
+        } finally {
+            sockets.remove(socket);
+        }
+    }
+
+
+    // Commands --------------------------------------------------------------------
+
+    private void execute(String line, Writer out) throws IOException {
+        String[] tokens = line.split(" ");
+        try {
+            switch (tokens[0]) {
+                case "docking" -> docking(tokens, out);
+                case "moveShipTo" -> moveShipTo(tokens, out);
+                case "moveShip" -> moveShip(tokens, out);
+                case "buildShip" -> buildShip(tokens, out);
+                case "arrangeShips" -> arrangeShips(tokens, out);
+                case "refuel" -> refuel(tokens, out);
+                default -> out.write("ERR UNKNOWN_COMMAND");
+            }
+        } catch (UnknownBaseException e) {
+            out.write("ERR UNKNOWN_BASE");
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException | ApplicationException e) {
+            out.write("ERR BAD_REQUEST");
+        }
+    }
+
+    private void docking(String[] tokens, Writer out) throws IOException {
+        SpaceBase spaceBase = base(tokens[1]);
+        status(directory.tryDocking(Long.parseLong(tokens[2]), spaceBase), out);
+    }
+
+    private void moveShipTo(String[] tokens, Writer out) throws IOException {
+        SpaceBase spaceBase = base(tokens[1]);
+        long id = Long.parseLong(tokens[2]);
+        status(spaceBase.tryMoveShipTo(id, base(tokens[3])), out);
+    }
+
+    private void moveShip(String[] tokens, Writer out) throws IOException {
+        long id = Long.parseLong(tokens[1]);
+        status(directory.moveShipTo(id, base(tokens[2])), out);
+    }
+
+    private void buildShip(String[] tokens, Writer out) throws IOException {
+        Long id = base(tokens[1]).buildShip();
+        out.write("OK ");
+        out.write(Long.toString(id));
+    }
+
+    private void arrangeShips(String[] tokens, Writer out) throws IOException {
+        List<SpaceShip> spaceships = base(tokens[1]).arrangeShips();
+        out.write("OK");
+        for (SpaceShip spaceship : spaceships) {
+            out.write(' ');
+            out.write(Long.toString(spaceship.getId()));
+        }
+    }
+
+    private void refuel(String[] tokens, Writer out) throws IOException {
+        Optional<SpaceShip> spaceship = base(tokens[1]).findShip(Long.parseLong(tokens[2]));
+        double amount = Double.parseDouble(tokens[3]);
+        if (spaceship.isEmpty()) {
+            status(OperationStatus.UNKNOWN_SHIP, out);
+        } else {
+            status(spaceship.get().tryRefuel(amount), out);
+        }
+    }
+
+    private static void status(OperationStatus status, Writer out) throws IOException {
+        if (status.isOk()) {
+            out.write("OK");
+        } else {
+            out.write("ERR ");
+            out.write(status.name());
+        }
+    }
+
+    private SpaceBase base(String token) {
+        int number = Integer.parseInt(token);
+        if (number < 0 || number >= bases.size())
+            throw new UnknownBaseException();
+        return bases.get(number);
+    }
+
+    private static final class UnknownBaseException extends RuntimeException {
+
+        private UnknownBaseException() {
+            super(null, null, false, false);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        for (Socket socket : sockets) {
+            socket.close();
+        }
+        connections.shutdown();
+    }
+}
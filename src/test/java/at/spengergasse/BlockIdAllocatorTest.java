@@ -0,0 +1,90 @@
+package at.spengergasse;
+
+import at.spengergasse.foundation.BlockIdAllocator;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BlockIdAllocatorTest {
+
+    @Test
+    void testNextId_shouldWork_singleThreadCountsUpFromFirstId() {
+        //GIVEN
+        BlockIdAllocator allocator = new BlockIdAllocator(100L, 4);
+
+        // WHEN
+        // THEN
+        for (long expected = 100L; expected < 110L; expected++) {
+            assertEquals(expected, allocator.nextId());
+        }
+        assertEquals(112L, allocator.highWaterMark());
+    }
+
+    @Test
+    void testNextId_shouldWork_idsOfManyThreadsAreUnique() throws InterruptedException {
+        //GIVEN
+        BlockIdAllocator allocator = new BlockIdAllocator(0L, 16);
+        int perThread = 10_000;
+        long[][] idsByThread = new long[8][perThread];
+        List<Throwable> failures = new CopyOnWriteArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+
+        // WHEN
+        for (int t = 0; t < idsByThread.length; t++) {
+            long[] ids = idsByThread[t];
+            threads.add(Thread.ofPlatform()
+                .uncaughtExceptionHandler((thread, e) -> failures.add(e))
+                .start(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        ids[i] = allocator.nextId();
+                    }
+                }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // THEN
+        assertEquals(List.of(), failures);
+        Set<Long> unique = new HashSet<>();
+        for (long[] ids : idsByThread) {
+            for (int i = 0; i < perThread; i++) {
+                if (i > 0) {
+                    assertTrue(ids[i] > ids[i - 1]);
+                }
+                unique.add(ids[i]);
+            }
+        }
+        assertEquals(8 * perThread, unique.size());
+        assertTrue(allocator.highWaterMark() >= 8 * perThread);
+    }
+
+    @Test
+    void testHighWaterMark_shouldWork_resumedAllocatorDoesNotRepeatIds() {
+        //GIVEN
+        BlockIdAllocator allocator = new BlockIdAllocator(100L, 8);
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < 20; i++) {
+            ids.add(allocator.nextId());
+        }
+
+        // WHEN
+        BlockIdAllocator resumed = new BlockIdAllocator(allocator.highWaterMark(), 8);
+
+        // THEN
+        for (int i = 0; i < 20; i++) {
+            assertTrue(ids.add(resumed.nextId()));
+        }
+    }
+
+    @Test
+    void testConstructor_shouldNotWork_blockSizeZero_throwsApplicationException() {
+        assertThrowsExactly(ApplicationException.class, () -> new BlockIdAllocator(0L, 0));
+    }
+}
@@ -0,0 +1,118 @@
+package at.spengergasse;
+
+import at.spengergasse.domain.SpaceBase;
+import at.spengergasse.domain.SpaceShip;
+import at.spengergasse.feed.ChangeFeed;
+import at.spengergasse.feed.ShipEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChangeFeedTest {
+
+    // collects everything, asking for one batch at a time
+    private static final class Collector implements Flow.Subscriber<List<ShipEvent>> {
+
+        private final List<ShipEvent> events = new ArrayList<>();
+        private final CountDownLatch completed = new CountDownLatch(1);
+        private Flow.Subscription subscription;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(1);
+        }
+
+        @Override
+        public synchronized void onNext(List<ShipEvent> batch) {
+            events.addAll(batch);
+            subscription.request(1);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            completed.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completed.countDown();
+        }
+
+        private synchronized List<ShipEvent> events() {
+            return new ArrayList<>(events);
+        }
+    }
+
+    @Test
+    void testFeed_shouldWork_publishesShipEventsInOrder() throws InterruptedException {
+        //GIVEN
+        SpaceBase earth = new SpaceBase("Earth", 0, 0);
+        SpaceBase moon = new SpaceBase("Moon", 10, 0);
+        Collector collector = new Collector();
+        ChangeFeed feed = ChangeFeed.open();
+        feed.subscribe(collector);
+
+        // WHEN
+        long id = earth.buildShip();
+        earth.moveShipTo(id, moon);
+        SpaceShip spaceship = moon.findShip(id).orElseThrow();
+        spaceship.refuel(5.0);
+        feed.close();
+
+        // THEN
+        assertTrue(collector.completed.await(5, TimeUnit.SECONDS));
+        List<ShipEvent> events = collector.events();
+        assertEquals(List.of(
+            new ShipEvent.Built(id, "Earth"),
+            new ShipEvent.Docked(id, "Earth"),
+            new ShipEvent.Moved(id, 10, 0, 2000.0 - 35.8),
+            new ShipEvent.Docked(id, "Moon"),
+            new ShipEvent.Departed(id, "Earth"),
+            new ShipEvent.Refuelled(id, 5.0, 2000.0 - 30.8)
+        ), events);
+        assertEquals(0, feed.dropped());
+    }
+
+    @Test
+    void testFeed_shouldWork_slowSubscriberDoesNotBlockDocking() throws InterruptedException {
+        //GIVEN
+        SpaceBase earth = new SpaceBase("Earth", 0, 0);
+        ChangeFeed feed = ChangeFeed.open(1_000, 100, 1);
+        // asks for a single batch and never for more
+        feed.subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(1);
+            }
+
+            @Override
+            public void onNext(List<ShipEvent> batch) {
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+
+        // WHEN
+        long start = System.nanoTime();
+        earth.buildShips(20_000);
+
+        // THEN
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(10));
+        assertEquals(20_000, earth.arrangeShips().size());
+        feed.close();
+        assertTrue(feed.dropped() > 0);
+    }
+}
@@ -0,0 +1,99 @@
+package at.spengergasse;
+
+import at.spengergasse.domain.SpaceBase;
+import at.spengergasse.domain.SpaceShip;
+import at.spengergasse.server.CommandServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandServerTest {
+
+    private SpaceBase earth;
+    private SpaceBase moon;
+    private CommandServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        earth = new SpaceBase("Earth", 0, 0);
+        moon = new SpaceBase("Moon", 10, 0);
+        server = CommandServer.start(0, List.of(earth, moon));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.close();
+    }
+
+    @Test
+    void testCommands_shouldWork_pipelinedRequestsAreAnsweredInOrder() throws IOException {
+        //GIVEN
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            OutputStream out = socket.getOutputStream();
+
+            // WHEN
+            out.write("buildShip 0\nbuildShip 0\n".getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            long first = Long.parseLong(in.readLine().substring(3));
+            long second = Long.parseLong(in.readLine().substring(3));
+            String requests = "moveShipTo 0 " + first + " 1\n"
+                + "moveShipTo 0 " + first + " 1\n"
+                + "refuel 1 " + first + " 10.5\n"
+                + "refuel 1 " + first + " 5000\n"
+                + "docking 1 " + second + "\n"
+                + "moveShip " + second + " 1\n"
+                + "arrangeShips 1\n"
+                + "moveShip " + first + " 0\n"
+                + "moveShip " + first + " 1\n";
+            out.write(requests.getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+
+            // THEN
+            assertEquals("OK", in.readLine());
+            assertEquals("ERR UNKNOWN_SHIP", in.readLine());
+            assertEquals("OK", in.readLine());
+            assertEquals("ERR FUEL_AMOUNT_TOO_HIGH", in.readLine());
+            // docked at base 0 already
+            assertEquals("ERR ALREADY_DOCKED", in.readLine());
+            assertEquals("OK", in.readLine());
+            assertEquals("OK " + first + " " + second, in.readLine());
+            assertEquals("OK", in.readLine());
+            assertEquals("OK", in.readLine());
+        }
+        SpaceShip moved = moon.findShip(moon.arrangeShips().get(0).getId()).orElseThrow();
+        assertEquals(moon, moved.getDockingBase());
+        // refuelled at home on the way back and forth
+        assertEquals(2000.0 - 10 * 3.58, moved.getFuel(), 1e-9);
+    }
+
+    @Test
+    void testCommands_shouldNotWork_badRequests_returnErrors() throws IOException {
+        //GIVEN
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            OutputStream out = socket.getOutputStream();
+
+            // WHEN
+            out.write("launch 0\nbuildShip 7\nrefuel 0 x 1\ndocking 0\n".getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+
+            // THEN
+            assertEquals("ERR UNKNOWN_COMMAND", in.readLine());
+            assertEquals("ERR UNKNOWN_BASE", in.readLine());
+            assertEquals("ERR BAD_REQUEST", in.readLine());
+            assertEquals("ERR BAD_REQUEST", in.readLine());
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package at.spengergasse;
+
+import at.spengergasse.domain.DockingScheduler;
+import at.spengergasse.domain.OperationStatus;
+import at.spengergasse.domain.SpaceBase;
+import at.spengergasse.domain.SpaceShip;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DockingSchedulerTest {
+
+    @Test
+    void testTick_shouldWork_admitsAndRefuelsLowestFuelFirst() {
+        //GIVEN
+        SpaceBase earth = new SpaceBase("Earth", 0, 0);
+        SpaceBase moon = new SpaceBase("Moon", 0, 0);
+        DockingScheduler scheduler = new DockingScheduler(earth, 2, 1, 500.0);
+        SpaceShip full = new SpaceShip(earth, 0, 0, 1_500.0);
+        SpaceShip empty = new SpaceShip(earth, 0, 0, 100.0);
+        SpaceShip half = new SpaceShip(earth, 0, 0, 900.0);
+        assertEquals(OperationStatus.OK, scheduler.arrive(full));
+        assertEquals(OperationStatus.OK, scheduler.arrive(empty));
+        assertEquals(OperationStatus.OK, scheduler.arrive(half));
+        assertEquals(OperationStatus.WAITING, scheduler.arrive(empty));
+
+        // WHEN
+        int admitted = scheduler.tick();
+
+        // THEN
+        assertEquals(2, admitted);
+        assertTrue(scheduler.isWaiting(full));
+        assertEquals(earth, empty.getDockingBase());
+        assertEquals(earth, half.getDockingBase());
+        // only one pump, and not filled up on docking
+        assertEquals(600.0, empty.getFuel());
+        assertEquals(900.0, half.getFuel());
+
+        scheduler.tick();
+        assertEquals(1_100.0, empty.getFuel());
+        assertEquals(900.0, half.getFuel());
+        scheduler.tick();
+        assertEquals(1_400.0, half.getFuel());
+
+        // a bay comes free
+        earth.moveShipTo(empty.getId(), moon);
+        assertEquals(1, scheduler.tick());
+        assertEquals(earth, full.getDockingBase());
+        assertEquals(0, scheduler.waiting());
+        DockingScheduler.Statistics statistics = scheduler.statistics();
+        assertEquals(4, statistics.ticks());
+        assertEquals(3, statistics.arrived());
+        assertEquals(3, statistics.admitted());
+        assertEquals(3, statistics.maxWait());
+        assertEquals(1.0, statistics.meanWait());
+        assertEquals(0.75, statistics.throughput());
+        assertEquals(1_900.0, half.getFuel());
+        assertEquals(2_000.0, statistics.fuelPumped());
+    }
+
+    @Test
+    void testTick_shouldWork_pumpsFillUpAndCountRefuelledShips() {
+        //GIVEN
+        SpaceBase earth = new SpaceBase("Earth", 0, 0);
+        SpaceBase moon = new SpaceBase("Moon", 0, 0);
+        DockingScheduler scheduler = new DockingScheduler(earth, 10, 2, 700.0);
+        SpaceShip first = new SpaceShip(earth, 0, 0, 1_000.0);
+        SpaceShip second = new SpaceShip(earth, 0, 0, 1_000.0);
+        SpaceShip visitor = new SpaceShip(moon, 0, 0, 1_000.0);
+        scheduler.arrive(first);
+        scheduler.arrive(second);
+        scheduler.arrive(visitor);
+
+        // WHEN
+        for (int i = 0; i < 3; i++) {
+            scheduler.tick();
+        }
+
+        // THEN
+        assertEquals(2_000.0, first.getFuel());
+        assertEquals(2_000.0, second.getFuel());
+        // pumps only serve ships at home
+        assertEquals(1_000.0, visitor.getFuel());
+        assertEquals(2, scheduler.statistics().refuelled());
+        assertEquals(2_000.0, scheduler.statistics().fuelPumped());
+        assertEquals(OperationStatus.ALREADY_DOCKED, scheduler.arrive(visitor));
+        assertEquals(OperationStatus.NULL_ARGUMENT, scheduler.arrive(null));
+    }
+
+    @Test
+    void testTick_shouldWork_dropsShipsDockedElsewhereWhileWaiting() {
+        //GIVEN
+        SpaceBase earth = new SpaceBase("Earth", 0, 0);
+        SpaceBase moon = new SpaceBase("Moon", 0, 0);
+        DockingScheduler scheduler = new DockingScheduler(earth, 2, 1, 500.0);
+        SpaceShip spaceship = new SpaceShip(earth, 0, 0, 1_000.0);
+        assertEquals(OperationStatus.OK, scheduler.arrive(spaceship));
+        assertEquals(OperationStatus.OK, moon.tryDocking(spaceship));
+
+        // WHEN
+        int admitted = scheduler.tick();
+
+        // THEN
+        assertEquals(0, admitted);
+        assertEquals(0, scheduler.waiting());
+        assertEquals(moon, spaceship.getDockingBase());
+        assertFalse(earth.snapshot().isDocked(spaceship.getId()));
+        assertEquals(0.0, scheduler.statistics().fuelPumped());
+    }
+
+    @Test
+    void testConstructor_shouldNotWork_noBays_throwsException() {
+        //GIVEN
+        SpaceBase earth = new SpaceBase("Earth", 0, 0);
+
+        // WHEN
+        // THEN
+        assertThrows(ApplicationException.class, () -> new DockingScheduler(earth, 0, 1, 1.0));
+        assertThrows(ApplicationException.class, () -> new DockingScheduler(earth, 1, 1, 0.0));
+    }
+}
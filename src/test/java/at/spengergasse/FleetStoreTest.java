@@ -0,0 +1,198 @@
+package at.spengergasse;
+
+import at.spengergasse.domain.FleetStore;
+import at.spengergasse.domain.SpaceBase;
+import at.spengergasse.domain.SpaceShip;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FleetStoreTest {
+
+    @Test
+    void testAllocate_shouldWork_onHeap_columnsAreIndependentPerSlot() {
+        testColumns(FleetStore.onHeap());
+    }
+
+    @Test
+    void testAllocate_shouldWork_offHeap_columnsAreIndependentPerSlot() {
+        try (FleetStore store = FleetStore.offHeap()) {
+            testColumns(store);
+        }
+    }
+
+    private void testColumns(FleetStore store) {
+        //GIVEN
+        int count = 40_000;
+
+        // WHEN
+        for (int i = 0; i < count; i++) {
+            int slot = store.allocate(1000L + i);
+            assertEquals(i, slot);
+            store.setPosX(slot, i);
+            store.setPosY(slot, 2 * i);
+            store.setFuel(slot, i / 2.0);
+            store.setHomeBase(slot, i % 7);
+        }
+
+        // THEN
+        assertEquals(count, store.size());
+        for (int slot = 0; slot < count; slot++) {
+            assertEquals(1000L + slot, store.id(slot));
+            assertEquals(slot, store.posX(slot));
+            assertEquals(2 * slot, store.posY(slot));
+            assertEquals(slot / 2.0, store.fuel(slot));
+            assertEquals(slot % 7, store.homeBase(slot));
+            assertEquals(FleetStore.NO_BASE, store.dockingBase(slot));
+        }
+    }
+
+    @Test
+    void testSpaceShip_shouldWork_offHeapShipsBehaveLikeHeapShips() {
+        try (FleetStore store = FleetStore.offHeap()) {
+            //GIVEN
+            SpaceBase homeBase = new SpaceBase("Gateway", 0, 0);
+            SpaceBase spacebase = new SpaceBase("MIR", 3, 4);
+            SpaceShip spaceship = new SpaceShip(store, homeBase, 0, 0, 1000.0);
+            homeBase.docking(spaceship);
+            assertEquals(2000.0, spaceship.getFuel());
+
+            // WHEN
+            assertEquals(spaceship, homeBase.moveShipTo(spaceship.getId(), spacebase));
+
+            // THEN
+            assertEquals(3, spaceship.getPosX());
+            assertEquals(4, spaceship.getPosY());
+            assertEquals(2000.0 - 5 * 3.58, spaceship.getFuel(), 1e-9);
+            assertSame(homeBase, spaceship.getHomeBase());
+            assertSame(spacebase, spaceship.getDockingBase());
+            assertEquals(1, spacebase.arrangeShips().size());
+        }
+    }
+
+    @Test
+    void testReachable_shouldWork_onHeap_sameShipsAsMoveTo() {
+        testReachable(FleetStore.onHeap());
+    }
+
+    @Test
+    void testReachable_shouldWork_offHeap_sameShipsAsMoveTo() {
+        try (FleetStore store = FleetStore.offHeap()) {
+            testReachable(store);
+        }
+    }
+
+    private void testReachable(FleetStore store) {
+        //GIVEN
+        SpaceBase homeBase = new SpaceBase("Gateway", 0, 0);
+        Random random = new Random(11);
+        List<SpaceShip> spaceships = new ArrayList<>();
+        // more than a page, and not a multiple of 64
+        for (int i = 0; i < 20_000; i++) {
+            spaceships.add(new SpaceShip(store, homeBase, random.nextInt(1_000), random.nextInt(1_000), random.nextInt(2_001)));
+        }
+        int[] targetsX = { 500, 0, 999 };
+        int[] targetsY = { 500, 0, 3 };
+
+        // WHEN
+        long[][] bitmaps = store.reachable(targetsX, targetsY);
+        long[] ids = store.reachableIds(500, 500);
+        double[] consumptions = store.consumptions(500, 500);
+
+        // THEN
+        List<Long> expectedIds = new ArrayList<>();
+        for (int target = 0; target < targetsX.length; target++) {
+            for (int slot = 0; slot < spaceships.size(); slot++) {
+                SpaceShip spaceship = spaceships.get(slot);
+                double distance = Math.hypot(targetsX[target] - spaceship.getPosX(), targetsY[target] - spaceship.getPosY());
+                boolean expected = spaceship.getFuel() - distance * 3.58 >= 0.0;
+                assertEquals(expected, (bitmaps[target][slot >>> 6] & (1L << slot)) != 0);
+                if (target == 0) {
+                    if (expected) {
+                        expectedIds.add(spaceship.getId());
+                    }
+                    assertEquals(distance * 3.58, consumptions[slot], 1e-9);
+                }
+            }
+        }
+        assertEquals(expectedIds, Arrays.stream(ids).boxed().toList());
+    }
+
+    @Test
+    void testAllocate_shouldWork_concurrentAllocationsGetDistinctSlots() throws InterruptedException {
+        //GIVEN
+        FleetStore store = FleetStore.onHeap();
+        List<Thread> threads = new ArrayList<>();
+
+        // WHEN
+        for (int t = 0; t < 4; t++) {
+            long firstId = t * 1_000_000L;
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < 50_000; i++) {
+                    int slot = store.allocate(firstId + i);
+                    store.setPosX(slot, i);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // THEN
+        assertEquals(200_000, store.size());
+        for (int slot = 0; slot < store.size(); slot++) {
+            assertEquals(store.id(slot) % 1_000_000L, store.posX(slot));
+        }
+    }
+
+    @Test
+    void testSize_shouldWork_readersOnlySeeInitialisedSlotsWhileAllocating() throws InterruptedException {
+        //GIVEN
+        FleetStore store = FleetStore.onHeap();
+        List<Thread> threads = new ArrayList<>();
+        AtomicBoolean allocating = new AtomicBoolean(true);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread reader = Thread.ofPlatform().start(() -> {
+            try {
+                while (allocating.get()) {
+                    int size = store.size();
+                    for (int slot = 0; slot < size; slot++) {
+                        // ids start at 1, so 0 is a slot not initialised yet
+                        if (store.id(slot) == 0L) {
+                            throw new AssertionError("slot " + slot + " is not initialised");
+                        }
+                    }
+                    store.consumptions(0, 0);
+                }
+            } catch (Throwable e) {
+                failure.compareAndSet(null, e);
+            }
+        });
+
+        // WHEN
+        for (int t = 0; t < 4; t++) {
+            long firstId = 1 + t * 1_000_000L;
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < 50_000; i++) {
+                    store.allocate(firstId + i);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        allocating.set(false);
+        reader.join();
+
+        // THEN
+        assertNull(failure.get());
+        assertEquals(200_000, store.size());
+    }
+}
@@ -0,0 +1,72 @@
+package at.spengergasse;
+
+import at.spengergasse.domain.SpaceBase;
+import at.spengergasse.domain.SpaceShip;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlightRecorderEventsTest {
+
+    @Test
+    void testEvents_shouldWork_recordingContainsDomainEvents() throws Exception {
+        //GIVEN
+        SpaceBase homeBase = new SpaceBase("JFR Home", 0, 0);
+        SpaceBase spacebase = new SpaceBase("JFR Target", 3, 4);
+        SpaceShip spaceship = new SpaceShip(homeBase, 0, 0, 1000.0);
+        Path file = Files.createTempFile("spacebase", ".jfr");
+
+        // WHEN
+        try (Recording recording = new Recording()) {
+            recording.enable("at.spengergasse.Docking");
+            recording.enable("at.spengergasse.Transfer");
+            recording.enable("at.spengergasse.Move");
+            recording.enable("at.spengergasse.Refuel");
+            recording.start();
+
+            homeBase.docking(spaceship);
+            homeBase.moveShipTo(spaceship.getId(), spacebase);
+            spaceship.refuel(10.0);
+
+            recording.stop();
+            recording.dump(file);
+        }
+
+        // THEN
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        Files.delete(file);
+
+        RecordedEvent docking = single(events, "at.spengergasse.Docking");
+        assertEquals((long) spaceship.getId(), docking.getLong("shipId"));
+        assertEquals("JFR Home", docking.getString("base"));
+        assertEquals("OK", docking.getString("status"));
+
+        RecordedEvent transfer = single(events, "at.spengergasse.Transfer");
+        assertEquals("JFR Home", transfer.getString("fromBase"));
+        assertEquals("JFR Target", transfer.getString("toBase"));
+        assertEquals(5.0, transfer.getDouble("distance"), 1e-9);
+        assertEquals(-5 * 3.58, transfer.getDouble("fuelDelta"), 1e-9);
+
+        RecordedEvent move = single(events, "at.spengergasse.Move");
+        assertEquals(5.0, move.getDouble("distance"), 1e-9);
+
+        RecordedEvent refuel = single(events, "at.spengergasse.Refuel");
+        assertEquals("JFR Target", refuel.getString("dockingBase"));
+        assertEquals(10.0, refuel.getDouble("fuelDelta"), 1e-9);
+    }
+
+    private static RecordedEvent single(List<RecordedEvent> events, String name) {
+        List<RecordedEvent> matching = events.stream()
+            .filter(event -> event.getEventType().getName().equals(name))
+            .toList();
+        assertEquals(1, matching.size());
+        return matching.get(0);
+    }
+}
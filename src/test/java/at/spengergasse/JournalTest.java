@@ -0,0 +1,210 @@
+package at.spengergasse;
+
+import at.spengergasse.domain.FleetStore;
+import at.spengergasse.domain.Journal;
+import at.spengergasse.domain.Snapshot;
+import at.spengergasse.domain.SpaceBase;
+import at.spengergasse.domain.SpaceShip;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JournalTest {
+
+    private Path directory;
+    private Path journalFile;
+    private Path snapshotFile;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("spacebase");
+        journalFile = directory.resolve("journal");
+        snapshotFile = directory.resolve("snapshot");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.deleteIfExists(journalFile);
+        Files.deleteIfExists(snapshotFile);
+        Files.deleteIfExists(directory);
+    }
+
+    private static List<Long> ids(List<SpaceShip> spaceships) {
+        return spaceships.stream().map(SpaceShip::getId).toList();
+    }
+
+    @Test
+    void testReplay_shouldWork_withoutSnapshot_restoresAllChanges() throws IOException {
+        //GIVEN
+        SpaceBase homeBase;
+        SpaceBase spacebase;
+        SpaceShip first;
+        SpaceShip second;
+        try (Journal journal = Journal.open(journalFile, new ArrayList<>(), Journal.Durability.GROUP_COMMIT)) {
+            homeBase = new SpaceBase("Gateway", 0, 0);
+            spacebase = new SpaceBase("MIR", 30, 40);
+            first = new SpaceShip(homeBase, 0, 0, 1000.0);
+            second = new SpaceShip(homeBase, 0, 0, 500.0);
+            homeBase.docking(first);
+            homeBase.docking(second);
+            homeBase.moveShipTo(first.getId(), spacebase);
+            first.refuel(100.0);
+            second.moveTo(1, 1);
+            spacebase.setName("Mir");
+        }
+
+        // WHEN
+        FleetStore store = FleetStore.onHeap();
+        List<SpaceBase> restored = Journal.replay(journalFile, new ArrayList<>(), store);
+
+        // THEN
+        assertEquals(2, restored.size());
+        SpaceBase restoredHome = restored.get(0);
+        SpaceBase restoredBase = restored.get(1);
+        assertEquals("Gateway", restoredHome.getName());
+        assertEquals("Mir", restoredBase.getName());
+        assertEquals(ids(homeBase.arrangeShips()), ids(restoredHome.arrangeShips()));
+        assertEquals(ids(spacebase.arrangeShips()), ids(restoredBase.arrangeShips()));
+
+        SpaceShip restoredFirst = restoredBase.arrangeShips().get(0);
+        assertEquals(first.getFuel(), restoredFirst.getFuel());
+        assertEquals(30, restoredFirst.getPosX());
+        assertSame(restoredHome, restoredFirst.getHomeBase());
+        assertSame(restoredBase, restoredFirst.getDockingBase());
+
+        SpaceShip restoredSecond = restoredHome.arrangeShips().get(0);
+        assertEquals(second.getFuel(), restoredSecond.getFuel());
+        assertEquals(1, restoredSecond.getPosY());
+    }
+
+    @Test
+    void testReplay_shouldWork_ontoCheckpoint() throws IOException {
+        //GIVEN
+        FleetStore store = FleetStore.onHeap();
+        SpaceBase homeBase;
+        SpaceBase spacebase;
+        try (Journal journal = Journal.open(journalFile, new ArrayList<>(), Journal.Durability.BACKGROUND)) {
+            homeBase = new SpaceBase("Gateway", 0, 0);
+            spacebase = new SpaceBase("MIR", 3, 4);
+            for (int i = 0; i < 10; i++) {
+                homeBase.docking(new SpaceShip(store, homeBase, 0, 0, 100.0 * i));
+            }
+            journal.checkpoint(snapshotFile, store);
+            for (SpaceShip spaceship : homeBase.arrangeShips().subList(0, 5)) {
+                homeBase.moveShipTo(spaceship.getId(), spacebase);
+            }
+        }
+
+        // WHEN
+        FleetStore restoredStore = FleetStore.onHeap();
+        List<SpaceBase> restored = Snapshot.read(snapshotFile, restoredStore);
+        restored = Journal.replay(journalFile, restored, restoredStore);
+
+        // THEN
+        assertEquals(10, restoredStore.size());
+        assertEquals(ids(homeBase.arrangeShips()), ids(restored.get(0).arrangeShips()));
+        assertEquals(ids(spacebase.arrangeShips()), ids(restored.get(1).arrangeShips()));
+        assertEquals(ids(spacebase.arrangeShipsByFuel()), ids(restored.get(1).arrangeShipsByFuel()));
+    }
+
+    @Test
+    void testReplay_shouldWork_uncommittedTransferIsDropped() throws IOException {
+        //GIVEN
+        SpaceShip spaceship;
+        try (Journal journal = Journal.open(journalFile, new ArrayList<>(), Journal.Durability.GROUP_COMMIT)) {
+            SpaceBase homeBase = new SpaceBase("Gateway", 0, 0);
+            SpaceBase spacebase = new SpaceBase("MIR", 3, 4);
+            spaceship = new SpaceShip(homeBase, 0, 0, 1000.0);
+            homeBase.docking(spaceship);
+            homeBase.moveShipTo(spaceship.getId(), spacebase);
+        }
+        // a crash before the commit record of the transfer
+        try (FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 5);
+        }
+
+        // WHEN
+        List<SpaceBase> restored = Journal.replay(journalFile, new ArrayList<>(), FleetStore.onHeap());
+
+        // THEN
+        assertEquals(List.of(spaceship.getId()), ids(restored.get(0).arrangeShips()));
+        assertEquals(List.of(), ids(restored.get(1).arrangeShips()));
+        assertSame(restored.get(0), restored.get(0).arrangeShips().get(0).getDockingBase());
+    }
+
+    @Test
+    void testReplay_shouldWork_interleavedOperationsAreCommittedWhole() throws Exception {
+        //GIVEN
+        SpaceShip spaceship;
+        SpaceShip other;
+        try (Journal journal = Journal.open(journalFile, new ArrayList<>(), Journal.Durability.GROUP_COMMIT)) {
+            SpaceBase homeBase = new SpaceBase("Gateway", 0, 0);
+            SpaceBase spacebase = new SpaceBase("MIR", 0, 0);
+            spaceship = new SpaceShip(homeBase, 0, 0, 1000.0);
+            other = new SpaceShip(homeBase, 0, 0, 1000.0);
+            homeBase.docking(spaceship);
+            homeBase.docking(other);
+
+            // WHEN
+            // the records of two transfers, the second one begun within the first
+            CountDownLatch firstBegun = new CountDownLatch(1);
+            CountDownLatch secondBegun = new CountDownLatch(1);
+            Thread first = Thread.ofPlatform().start(() -> {
+                journal.departed(homeBase, spaceship);
+                firstBegun.countDown();
+                awaitUninterruptibly(secondBegun);
+                journal.docked(spacebase, spaceship);
+                journal.completed();
+            });
+            Thread second = Thread.ofPlatform().start(() -> {
+                awaitUninterruptibly(firstBegun);
+                // a crash before it completes
+                journal.departed(homeBase, other);
+                secondBegun.countDown();
+            });
+            first.join();
+            second.join();
+        }
+        List<SpaceBase> restored = Journal.replay(journalFile, new ArrayList<>(), FleetStore.onHeap());
+
+        // THEN
+        assertEquals(List.of(other.getId()), ids(restored.get(0).arrangeShips()));
+        assertEquals(List.of(spaceship.getId()), ids(restored.get(1).arrangeShips()));
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Test
+    void testOpen_shouldWork_tornRecordIsCutOff() throws IOException {
+        //GIVEN
+        try (Journal journal = Journal.open(journalFile, new ArrayList<>(), Journal.Durability.GROUP_COMMIT)) {
+            new SpaceBase("Gateway", 0, 0);
+        }
+        long size = Files.size(journalFile);
+        Files.write(journalFile, new byte[] { 2, 1, 2, 3 }, StandardOpenOption.APPEND);
+
+        // WHEN
+        try (Journal journal = Journal.open(journalFile, new ArrayList<>(), Journal.Durability.GROUP_COMMIT)) {
+            // THEN
+            assertEquals(size, Files.size(journalFile));
+        }
+        assertEquals(1, Journal.replay(journalFile, new ArrayList<>(), FleetStore.onHeap()).size());
+    }
+}
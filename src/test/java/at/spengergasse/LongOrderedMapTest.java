@@ -0,0 +1,103 @@
+package at.spengergasse;
+
+import at.spengergasse.foundation.LongOrderedMap;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongOrderedMapTest {
+
+    @Test
+    void testPut_shouldWork_valuesKeepInsertionOrder() {
+        //GIVEN
+        LongOrderedMap<String> map = new LongOrderedMap<>();
+
+        // WHEN
+        map.put(300L, "c");
+        map.put(100L, "a");
+        map.put(200L, "b");
+
+        // THEN
+        assertEquals(3, map.size());
+        assertIterableEquals(List.of("c", "a", "b"), map.values());
+        assertEquals("a", map.get(100L));
+        assertTrue(map.containsKey(200L));
+        assertFalse(map.containsKey(400L));
+    }
+
+    @Test
+    void testPut_shouldWork_existingKeyKeepsPosition() {
+        //GIVEN
+        LongOrderedMap<String> map = new LongOrderedMap<>();
+        map.put(1L, "a");
+        map.put(2L, "b");
+
+        // WHEN
+        String previous = map.put(1L, "A");
+
+        // THEN
+        assertEquals("a", previous);
+        assertIterableEquals(List.of("A", "b"), map.values());
+    }
+
+    @Test
+    void testRemove_shouldWork_keyIsGoneAndOrderIsKept() {
+        //GIVEN
+        LongOrderedMap<String> map = new LongOrderedMap<>();
+        map.put(1L, "a");
+        map.put(2L, "b");
+        map.put(3L, "c");
+
+        // WHEN
+        assertEquals("b", map.remove(2L));
+        map.put(4L, "d");
+
+        // THEN
+        assertNull(map.remove(2L));
+        assertNull(map.get(2L));
+        assertEquals(3, map.size());
+        assertIterableEquals(List.of("a", "c", "d"), map.values());
+    }
+
+    @Test
+    void testPutAndRemove_shouldWork_manyKeysAcrossResizes() {
+        //GIVEN
+        LongOrderedMap<Long> map = new LongOrderedMap<>();
+        int count = 10_000;
+
+        // WHEN
+        for (long key = 0; key < count; key++) {
+            map.put(key * 31, key);
+        }
+        for (long key = 0; key < count; key += 2) {
+            map.remove(key * 31);
+        }
+
+        // THEN
+        assertEquals(count / 2, map.size());
+        List<Long> expected = new ArrayList<>();
+        for (long key = 1; key < count; key += 2) {
+            expected.add(key);
+            assertEquals(Long.valueOf(key), map.get(key * 31));
+        }
+        assertIterableEquals(expected, map.values());
+    }
+
+    @Test
+    void testClear_shouldWork_mapIsEmpty() {
+        //GIVEN
+        LongOrderedMap<String> map = new LongOrderedMap<>();
+        map.put(1L, "a");
+
+        // WHEN
+        map.clear();
+
+        // THEN
+        assertTrue(map.isEmpty());
+        assertFalse(map.values().iterator().hasNext());
+        assertNull(map.get(1L));
+    }
+}
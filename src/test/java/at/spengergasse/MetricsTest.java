@@ -0,0 +1,137 @@
+package at.spengergasse;
+
+import at.spengergasse.domain.SpaceBase;
+import at.spengergasse.domain.SpaceShip;
+import at.spengergasse.metrics.BaseMetrics;
+import at.spengergasse.metrics.Metrics;
+import at.spengergasse.metrics.MetricsServer;
+import at.spengergasse.metrics.Operation;
+import at.spengergasse.metrics.PrometheusFormat;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsTest {
+
+    @BeforeEach
+    void setUp() {
+        Metrics.reset();
+        Metrics.setEnabled(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        Metrics.setEnabled(false);
+        Metrics.reset();
+    }
+
+    @Test
+    void testRecord_shouldWork_operationsAreCountedPerBase() {
+        //GIVEN
+        SpaceBase homeBase = new SpaceBase("Metrics Home", 0, 0);
+        SpaceBase spacebase = new SpaceBase("Metrics Target", 3, 4);
+        SpaceShip spaceship = new SpaceShip(homeBase, 0, 0, 1000.0);
+
+        // WHEN
+        homeBase.docking(spaceship);
+        assertFalse(homeBase.tryDocking(spaceship).isOk());
+        homeBase.moveShipTo(spaceship.getId(), spacebase);
+        homeBase.moveShipTo(spaceship.getId(), spacebase);
+
+        // THEN
+        BaseMetrics home = metricsOf("Metrics Home");
+        assertEquals(2, home.get(Operation.DOCKING).getCalls());
+        assertEquals(1, home.get(Operation.DOCKING).getFailures());
+        assertEquals(2, home.get(Operation.MOVE_SHIP_TO).getCalls());
+        assertEquals(1, home.get(Operation.MOVE_SHIP_TO).getFailures());
+        assertEquals(1, home.get(Operation.MOVE_TO).getCalls());
+        assertEquals(5 * 3.58, home.getFuelBurned(), 1e-9);
+        assertEquals(2, home.get(Operation.DOCKING).getLatency().count());
+    }
+
+    @Test
+    void testRecord_shouldWork_basesWithTheSameNameAreCountedApart() {
+        //GIVEN
+        SpaceBase first = new SpaceBase("Twin", 0, 0);
+        SpaceBase second = new SpaceBase("Twin", 0, 0);
+
+        // WHEN
+        first.buildShip();
+        second.buildShips(3);
+
+        // THEN
+        List<BaseMetrics> twins = Metrics.all().stream()
+            .filter(metrics -> metrics.getBaseName().equals("Twin"))
+            .sorted(Comparator.comparingInt(BaseMetrics::getBaseIndex))
+            .toList();
+        assertEquals(2, twins.size());
+        assertEquals(1, twins.get(0).get(Operation.BUILD_SHIP).getCalls());
+        assertEquals(3, twins.get(1).get(Operation.BUILD_SHIP).getCalls());
+        assertEquals(3, twins.get(1).get(Operation.BUILD_SHIP).getLatency().count());
+    }
+
+    @Test
+    void testRecord_shouldWork_disabled_recordsNothing() {
+        //GIVEN
+        Metrics.setEnabled(false);
+        SpaceBase spacebase = new SpaceBase("Metrics Off", 0, 0);
+
+        // WHEN
+        spacebase.buildShip();
+
+        // THEN
+        assertTrue(Metrics.all().isEmpty());
+    }
+
+    @Test
+    void testWrite_shouldWork_prometheusTextHasCountersAndHistogram() {
+        //GIVEN
+        SpaceBase spacebase = new SpaceBase("Say \"hi\"", 0, 0);
+        spacebase.buildShip();
+
+        // WHEN
+        String text = PrometheusFormat.write();
+
+        // THEN
+        String base = "base=\"Say \\\"hi\\\"\",base_index=\"" + metricsOf("Say \"hi\"").getBaseIndex() + "\"";
+        assertTrue(text.contains("# TYPE spacebase_operations_total counter"));
+        assertTrue(text.contains("spacebase_operations_total{operation=\"buildShip\"," + base + "} 1"));
+        assertTrue(text.contains("spacebase_operation_duration_seconds_bucket{operation=\"buildShip\"," + base + ",le=\"+Inf\"} 1"));
+        assertTrue(text.contains("spacebase_operation_duration_seconds_count{operation=\"buildShip\"," + base + "} 1"));
+    }
+
+    @Test
+    void testMetricsServer_shouldWork_servesMetricsOnLoopback() throws Exception {
+        //GIVEN
+        new SpaceBase("Served", 0, 0).buildShip();
+
+        try (MetricsServer server = MetricsServer.start(0)) {
+            // WHEN
+            HttpResponse<String> response = HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.getPort() + MetricsServer.PATH)).build(),
+                HttpResponse.BodyHandlers.ofString());
+
+            // THEN
+            assertEquals(200, response.statusCode());
+            assertTrue(response.body().contains("base=\"Served\""));
+        }
+    }
+
+    // the metrics of the only base with the given name
+    private static BaseMetrics metricsOf(String baseName) {
+        List<BaseMetrics> found = Metrics.all().stream()
+            .filter(metrics -> metrics.getBaseName().equals(baseName))
+            .toList();
+        assertEquals(1, found.size());
+        return found.get(0);
+    }
+}
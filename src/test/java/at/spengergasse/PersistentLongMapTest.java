@@ -0,0 +1,63 @@
+package at.spengergasse;
+
+import at.spengergasse.foundation.PersistentLongMap;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistentLongMapTest {
+
+    @Test
+    void testPut_shouldWork_oldVersionsStayUnchanged() {
+        //GIVEN
+        PersistentLongMap<String> empty = PersistentLongMap.empty();
+
+        // WHEN
+        PersistentLongMap<String> one = empty.put(2L, "b");
+        PersistentLongMap<String> two = one.put(1L, "a");
+        PersistentLongMap<String> three = two.put(3L, "c").remove(2L);
+
+        // THEN
+        assertTrue(empty.isEmpty());
+        assertIterableEquals(List.of("b"), one.values());
+        assertIterableEquals(List.of("a", "b"), two.values());
+        assertIterableEquals(List.of("a", "c"), three.values());
+        assertSame(two, two.put(1L, "a"));
+        assertSame(two, two.remove(7L));
+        assertEquals("c", three.get(3L));
+        assertNull(three.get(2L));
+        assertTrue(two.containsKey(2L));
+    }
+
+    @Test
+    void testPutRemove_shouldWork_sameAsTreeMap() {
+        //GIVEN
+        Random random = new Random(42);
+        TreeMap<Long, Long> expected = new TreeMap<>();
+        PersistentLongMap<Long> map = PersistentLongMap.empty();
+
+        // WHEN
+        for (int i = 0; i < 50_000; i++) {
+            long key = random.nextInt(5_000);
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                map = map.remove(key);
+            } else {
+                expected.put(key, (long) i);
+                map = map.put(key, (long) i);
+            }
+        }
+
+        // THEN
+        assertEquals(expected.size(), map.size());
+        assertEquals(new ArrayList<>(expected.values()), new ArrayList<>(map.values()));
+        for (long key = 0; key < 5_000; key++) {
+            assertEquals(expected.get(key), map.get(key));
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package at.spengergasse;
+
+import at.spengergasse.domain.Route;
+import at.spengergasse.domain.RoutePlanner;
+import at.spengergasse.domain.SpaceBase;
+import at.spengergasse.domain.SpaceBaseIndex;
+import at.spengergasse.domain.SpaceShip;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoutePlannerTest {
+
+    @Test
+    void testPlan_shouldWork_directJumpIfFuelSuffices() {
+        //GIVEN
+        SpaceBase start = new SpaceBase("Start", 0, 0);
+        SpaceBase stopover = new SpaceBase("Stopover", 50, 1);
+        SpaceBase destination = new SpaceBase("Destination", 100, 0);
+        RoutePlanner planner = new RoutePlanner(new SpaceBaseIndex(List.of(start, stopover, destination)));
+        SpaceShip spaceship = new SpaceShip(start, 0, 0, 1000.0);
+
+        // WHEN
+        Optional<Route> route = planner.plan(spaceship, destination);
+
+        // THEN
+        assertTrue(route.isPresent());
+        assertEquals(List.of(destination), route.get().stops());
+        assertEquals(100.0, route.get().distance(), 1e-9);
+        assertEquals(358.0, route.get().fuel(), 1e-9);
+    }
+
+    @Test
+    void testPlan_shouldWork_refuelsAtHomeBaseOnTheWay() {
+        //GIVEN
+        SpaceBase start = new SpaceBase("Start", 0, 0);
+        SpaceBase homeBase = new SpaceBase("Home", 500, 0);
+        SpaceBase destination = new SpaceBase("Destination", 1000, 0);
+        RoutePlanner planner = new RoutePlanner(new SpaceBaseIndex(List.of(start, homeBase, destination)));
+        SpaceShip spaceship = new SpaceShip(homeBase, 0, 0, 1800.0);
+
+        // WHEN
+        Optional<Route> route = planner.plan(spaceship, destination);
+
+        // THEN
+        assertTrue(route.isPresent());
+        assertEquals(List.of(homeBase, destination), route.get().stops());
+        assertEquals(1000.0, route.get().distance(), 1e-9);
+    }
+
+    @Test
+    void testPlan_shouldWork_detourHomeWhenTankIsLow() {
+        //GIVEN
+        SpaceBase homeBase = new SpaceBase("Home", 100, 0);
+        SpaceBase stopover = new SpaceBase("Stopover", 0, 100);
+        SpaceBase destination = new SpaceBase("Destination", 0, 400);
+        RoutePlanner planner = new RoutePlanner(new SpaceBaseIndex(List.of(homeBase, stopover, destination)));
+
+        // WHEN
+        Optional<Route> route = planner.plan(0, 0, 500.0, homeBase, destination);
+
+        // THEN
+        assertTrue(route.isPresent());
+        assertEquals(List.of(homeBase, destination), route.get().stops());
+    }
+
+    @Test
+    void testPlan_shouldWork_unreachableDestination_returnsEmpty() {
+        //GIVEN
+        SpaceBase homeBase = new SpaceBase("Home", 0, 0);
+        SpaceBase stopover = new SpaceBase("Stopover", 400, 0);
+        SpaceBase destination = new SpaceBase("Destination", 1000, 0);
+        RoutePlanner planner = new RoutePlanner(new SpaceBaseIndex(List.of(homeBase, stopover, destination)));
+        SpaceShip spaceship = new SpaceShip(homeBase, 0, 0, 2000.0);
+
+        // WHEN
+        // THEN
+        assertTrue(planner.plan(spaceship, destination).isEmpty());
+    }
+
+    @Test
+    void testPlan_shouldWork_routeCanBeFlown() {
+        //GIVEN
+        Random random = new Random(7);
+        List<SpaceBase> spacebases = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            spacebases.add(new SpaceBase("Base " + i, random.nextInt(2_000), random.nextInt(2_000)));
+        }
+        RoutePlanner planner = new RoutePlanner(new SpaceBaseIndex(spacebases));
+        SpaceBase homeBase = spacebases.get(0);
+        // a start close to home with a low tank, and a destination near the end of the range from home
+        SpaceBase start = null;
+        SpaceBase destination = null;
+        for (SpaceBase spacebase : spacebases) {
+            double fromHome = Math.hypot(spacebase.getPosX() - homeBase.getPosX(), spacebase.getPosY() - homeBase.getPosY());
+            if (fromHome > 40 && fromHome < 80 && start == null) {
+                start = spacebase;
+            }
+            if (fromHome > 450 && fromHome < 550 && destination == null) {
+                destination = spacebase;
+            }
+        }
+        SpaceShip spaceship = new SpaceShip(homeBase, start.getPosX(), start.getPosY(), 300.0);
+
+        // WHEN
+        Optional<Route> route = planner.plan(spaceship, destination);
+
+        // THEN
+        assertTrue(route.isPresent());
+        double distance = 0.0;
+        for (SpaceBase stop : route.get().stops()) {
+            distance += Math.hypot(stop.getPosX() - spaceship.getPosX(), stop.getPosY() - spaceship.getPosY());
+            assertDoesNotThrow(() -> spaceship.moveTo(stop.getPosX(), stop.getPosY()));
+            spaceship.setDockingBase(stop);
+        }
+        assertEquals(route.get().distance(), distance, 1e-6);
+        assertSame(destination, spaceship.getDockingBase());
+    }
+}
@@ -0,0 +1,136 @@
+package at.spengergasse;
+
+import at.spengergasse.domain.OperationStatus;
+import at.spengergasse.domain.ShipDirectory;
+import at.spengergasse.domain.Shards;
+import at.spengergasse.domain.SpaceBase;
+import at.spengergasse.domain.SpaceShip;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardsTest {
+
+    @Test
+    void testMoveShipTo_shouldWork_acrossShardsInTwoPhases() throws InterruptedException {
+        //GIVEN
+        ShipDirectory directory = SpaceShip.getDefaultStore().directory();
+        SpaceBase earth = new SpaceBase("Earth", 0, 0);
+        SpaceBase moon = new SpaceBase("Moon", 10, 0);
+        SpaceBase mars = new SpaceBase("Mars", 1_000, 0);
+        try (Shards shards = Shards.start(2, List.of(earth, moon, mars))) {
+            assertEquals(0, shards.shardOf(earth));
+            assertEquals(1, shards.shardOf(moon));
+            assertEquals(0, shards.shardOf(mars));
+            long id = shards.buildShip(earth).join();
+            long other = shards.buildShip(earth).join();
+
+            // WHEN
+            OperationStatus moved = shards.moveShipTo(earth, id, moon).join();
+
+            // THEN
+            assertEquals(OperationStatus.OK, moved);
+            SpaceShip spaceship = moon.findShip(id).orElseThrow();
+            assertEquals(moon, spaceship.getDockingBase());
+            assertEquals(10, spaceship.getPosX());
+            assertFalse(earth.snapshot().isDocked(id));
+            assertEquals(moon, directory.baseOf(id));
+
+            // docked at both, handed back
+            assertEquals(OperationStatus.OK, shards.docking(moon, earth.findShip(other).orElseThrow()).join());
+            assertEquals(OperationStatus.ALREADY_DOCKED, shards.moveShipTo(earth, other, moon).join());
+            assertTrue(earth.snapshot().isDocked(other));
+            assertEquals(earth, directory.baseOf(other));
+            assertEquals(OperationStatus.UNKNOWN_SHIP, shards.moveShipTo(earth, id, moon).join());
+            assertEquals(OperationStatus.LACK_OF_FUEL, shards.moveShipTo(moon, id, mars).join());
+            assertEquals(OperationStatus.OK, shards.moveShipTo(moon, id, earth).join());
+        }
+    }
+
+    @Test
+    void testMoveShipTo_shouldWork_concurrentTransfersKeepEveryShip() throws InterruptedException {
+        //GIVEN
+        ShipDirectory directory = SpaceShip.getDefaultStore().directory();
+        List<SpaceBase> bases = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            bases.add(new SpaceBase("Base " + i, 0, 0));
+        }
+        long[] ids = bases.get(0).buildShips(100).succeededIds();
+        Shards shards = Shards.start(4, bases);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            threads.add(new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                List<CompletableFuture<OperationStatus>> answers = new ArrayList<>();
+                for (int i = 0; i < 5_000; i++) {
+                    long id = ids[random.nextInt(ids.length)];
+                    SpaceBase from = directory.baseOf(id);
+                    if (from != null) {
+                        answers.add(shards.moveShipTo(from, id, bases.get(random.nextInt(bases.size()))));
+                    }
+                }
+                answers.forEach(CompletableFuture::join);
+            }));
+        }
+
+        // WHEN
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        shards.close();
+
+        // THEN
+        int docked = 0;
+        for (SpaceBase spacebase : bases) {
+            docked += spacebase.snapshot().shipCount();
+        }
+        assertEquals(ids.length, docked);
+        for (long id : ids) {
+            assertTrue(directory.baseOf(id).snapshot().isDocked(id));
+        }
+    }
+
+    @Test
+    void testClose_shouldWork_answersAllTransfersUnderWay() throws InterruptedException {
+        //GIVEN
+        SpaceBase earth = new SpaceBase("Earth", 0, 0);
+        SpaceBase moon = new SpaceBase("Moon", 0, 0);
+        long[] ids = earth.buildShips(1_000).succeededIds();
+        Shards shards = Shards.start(2, List.of(earth, moon));
+        List<CompletableFuture<OperationStatus>> answers = new ArrayList<>();
+        for (long id : ids) {
+            answers.add(shards.moveShipTo(earth, id, moon));
+        }
+
+        // WHEN
+        shards.close();
+
+        // THEN
+        for (CompletableFuture<OperationStatus> answer : answers) {
+            assertTrue(answer.isDone());
+            assertEquals(OperationStatus.OK, answer.join());
+        }
+        assertEquals(ids.length, moon.snapshot().shipCount());
+        assertEquals(moon, moon.findShip(ids[0]).orElseThrow().getDockingBase());
+    }
+
+    @Test
+    void testSubmit_shouldNotWork_unknownBaseOrClosed_throwsException() throws InterruptedException {
+        //GIVEN
+        SpaceBase earth = new SpaceBase("Earth", 0, 0);
+        SpaceBase elsewhere = new SpaceBase("Elsewhere", 0, 0);
+        Shards shards = Shards.start(1, List.of(earth));
+
+        // WHEN
+        // THEN
+        assertThrows(ApplicationException.class, () -> shards.buildShip(elsewhere));
+        shards.close();
+        assertThrows(ApplicationException.class, () -> shards.buildShip(earth));
+    }
+}
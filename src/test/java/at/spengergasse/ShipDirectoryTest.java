@@ -0,0 +1,138 @@
+package at.spengergasse;
+
+import at.spengergasse.domain.FleetStore;
+import at.spengergasse.domain.OperationStatus;
+import at.spengergasse.domain.ShipDirectory;
+import at.spengergasse.domain.SpaceBase;
+import at.spengergasse.domain.SpaceShip;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShipDirectoryTest {
+
+    @Test
+    void testBaseOf_shouldWork_followsDockingAndTransfers() {
+        //GIVEN
+        ShipDirectory directory = SpaceShip.getDefaultStore().directory();
+        SpaceBase earth = new SpaceBase("Earth", 0, 0);
+        SpaceBase moon = new SpaceBase("Moon", 10, 0);
+        SpaceBase mars = new SpaceBase("Mars", 20, 0);
+        long id = earth.buildShip();
+        assertEquals(earth, directory.baseOf(id));
+
+        // WHEN
+        earth.moveShipTo(id, moon);
+
+        // THEN
+        assertEquals(moon, directory.baseOf(id));
+        assertEquals(OperationStatus.OK, directory.moveShipTo(id, mars));
+        assertEquals(mars, directory.baseOf(id));
+        assertEquals(OperationStatus.ALREADY_DOCKED, directory.moveShipTo(id, mars));
+        SpaceShip spaceship = directory.find(id).orElseThrow();
+        assertEquals(mars, spaceship.getDockingBase());
+        assertNull(directory.baseOf(-1L));
+        assertEquals(OperationStatus.UNKNOWN_SHIP, directory.moveShipTo(-1L, mars));
+    }
+
+    @Test
+    void testBaseOf_shouldWork_onlyShipsOfItsStore() {
+        //GIVEN
+        FleetStore store = FleetStore.onHeap();
+        SpaceBase earth = new SpaceBase("Earth", 0, 0);
+        long[] ids = new long[1_000];
+        for (int i = 0; i < ids.length; i++) {
+            SpaceShip spaceship = new SpaceShip(store, earth, 0, 0, 1_000.0);
+            earth.docking(spaceship);
+            ids[i] = spaceship.getId();
+        }
+
+        // WHEN
+        SpaceBase moon = new SpaceBase("Moon", 0, 0);
+        earth.moveShipTo(ids[0], moon);
+
+        // THEN
+        assertEquals(moon, store.directory().baseOf(ids[0]));
+        for (int i = 1; i < ids.length; i++) {
+            assertEquals(earth, store.directory().baseOf(ids[i]));
+            assertNull(SpaceShip.getDefaultStore().directory().baseOf(ids[i]));
+        }
+    }
+
+    @Test
+    void testBaseOf_shouldWork_neverMissesAShipDuringTransfers() throws InterruptedException {
+        //GIVEN
+        ShipDirectory directory = SpaceShip.getDefaultStore().directory();
+        SpaceBase earth = new SpaceBase("Earth", 0, 0);
+        SpaceBase moon = new SpaceBase("Moon", 0, 0);
+        long[] ids = earth.buildShips(10).succeededIds();
+        AtomicBoolean moving = new AtomicBoolean(true);
+        Thread mover = Thread.ofPlatform().start(() -> {
+            while (moving.get()) {
+                for (long id : ids) {
+                    if (!earth.tryMoveShipTo(id, moon).isOk()) {
+                        moon.tryMoveShipTo(id, earth);
+                    }
+                }
+            }
+        });
+
+        // WHEN
+        int missed = 0;
+        try {
+            for (int i = 0; i < 200_000; i++) {
+                if (directory.baseOf(ids[i % ids.length]) == null) {
+                    missed++;
+                }
+            }
+        } finally {
+            moving.set(false);
+            mover.join();
+        }
+
+        // THEN
+        assertEquals(0, missed);
+    }
+
+    @Test
+    void testMoveShipTo_shouldWork_concurrentTransfersByIdKeepEveryShipFindable() throws InterruptedException {
+        //GIVEN
+        ShipDirectory directory = SpaceShip.getDefaultStore().directory();
+        List<SpaceBase> bases = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            bases.add(new SpaceBase("Base " + i, 0, 0));
+        }
+        long[] ids = bases.get(0).buildShips(100).succeededIds();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            threads.add(new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < 5_000; i++) {
+                    directory.moveShipTo(ids[random.nextInt(ids.length)], bases.get(random.nextInt(bases.size())));
+                }
+            }));
+        }
+
+        // WHEN
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // THEN
+        int docked = 0;
+        for (SpaceBase spacebase : bases) {
+            docked += spacebase.snapshot().shipCount();
+        }
+        assertEquals(ids.length, docked);
+        for (long id : ids) {
+            SpaceBase spacebase = directory.baseOf(id);
+            assertTrue(spacebase.snapshot().isDocked(id));
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package at.spengergasse;
+
+import at.spengergasse.domain.SpaceBase;
+import at.spengergasse.domain.SpaceShip;
+import at.spengergasse.query.ShipIndex;
+import at.spengergasse.query.ShipQuery;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShipIndexTest {
+
+    private ShipIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = ShipIndex.open(List.of());
+    }
+
+    @AfterEach
+    void tearDown() {
+        index.close();
+    }
+
+    @Test
+    void testFind_shouldWork_lowFuelShipsDockedAwayFromHome() {
+        //GIVEN
+        SpaceBase earth = new SpaceBase("Earth", 0, 0);
+        SpaceBase moon = new SpaceBase("Moon", 100, 0);
+        long stays = earth.buildShip();
+        long travels = earth.buildShip();
+        long refuelled = earth.buildShip();
+        earth.moveShipTo(travels, moon);
+        earth.moveShipTo(refuelled, moon);
+
+        // WHEN
+        SpaceShip spaceship = moon.findShip(travels).orElseThrow();
+        spaceship.moveTo(300, 0);
+        spaceship.moveTo(100, 0);
+        List<SpaceShip> found = index.find(ShipQuery.all().fuelBelow(1_000.0).homeBase(earth).dockedElsewhere());
+
+        // THEN
+        assertEquals(List.of(spaceship), found);
+        assertEquals(List.of(spaceship, moon.findShip(refuelled).orElseThrow()),
+            index.find(ShipQuery.all().homeBase(earth).dockedAt(moon)));
+        assertEquals(List.of(earth.findShip(stays).orElseThrow()),
+            index.find(ShipQuery.all().dockedAt(earth).within(0, 0, 0, 0)));
+    }
+
+    @Test
+    void testExplain_shouldWork_picksTheMostSelectiveIndex() {
+        //GIVEN
+        SpaceBase crowded = new SpaceBase("Crowded", 50, 50);
+        SpaceBase quiet = new SpaceBase("Quiet", 50, 50);
+        crowded.buildShips(1_000);
+        quiet.buildShips(3);
+
+        // WHEN
+        // THEN
+        assertEquals(ShipIndex.Access.DOCKING_BASE,
+            index.explain(ShipQuery.all().dockedAt(quiet).within(0, 0, 100, 100)));
+        assertEquals(ShipIndex.Access.POSITION,
+            index.explain(ShipQuery.all().dockedAt(crowded).within(0, 0, 10, 10)));
+        assertEquals(ShipIndex.Access.FUEL,
+            index.explain(ShipQuery.all().homeBase(crowded).fuelBelow(100.0)));
+        assertEquals(ShipIndex.Access.SCAN, index.explain(ShipQuery.all().dockedElsewhere()));
+    }
+
+    @Test
+    void testOpen_shouldWork_shipsChangingMeanwhileAreIndexedAsTheyAre() throws InterruptedException {
+        //GIVEN
+        SpaceBase earth = new SpaceBase("Earth", 0, 0);
+        SpaceBase moon = new SpaceBase("Moon", 0, 0);
+        long[] ids = earth.buildShips(1_000).succeededIds();
+        AtomicBoolean moving = new AtomicBoolean(true);
+        Thread mover = Thread.ofPlatform().start(() -> {
+            Random random = new Random(42);
+            while (moving.get()) {
+                long id = ids[random.nextInt(ids.length)];
+                if (!earth.tryMoveShipTo(id, moon).isOk()) {
+                    moon.tryMoveShipTo(id, earth);
+                }
+            }
+        });
+
+        // WHEN
+        ShipIndex opened;
+        try {
+            opened = ShipIndex.open(List.of(earth, moon));
+        } finally {
+            moving.set(false);
+            mover.join();
+        }
+
+        // THEN
+        try (opened) {
+            assertEquals(ids.length, opened.size());
+            assertEquals(sortedById(earth.arrangeShips()), opened.find(ShipQuery.all().dockedAt(earth)));
+            assertEquals(sortedById(moon.arrangeShips()), opened.find(ShipQuery.all().dockedAt(moon)));
+        }
+    }
+
+    @Test
+    void testFind_shouldWork_sameAsFilteringAllShips() {
+        //GIVEN
+        Random random = new Random(42);
+        List<SpaceBase> bases = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            bases.add(new SpaceBase("Base " + i, random.nextInt(200), random.nextInt(200)));
+        }
+        List<SpaceShip> ships = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            SpaceBase home = bases.get(random.nextInt(bases.size()));
+            SpaceShip spaceship = new SpaceShip(home, home.getPosX(), home.getPosY(), random.nextInt(2_000));
+            bases.get(random.nextInt(bases.size())).docking(spaceship);
+            ships.add(spaceship);
+        }
+        for (int i = 0; i < 2_000; i++) {
+            SpaceShip spaceship = ships.get(random.nextInt(ships.size()));
+            SpaceBase from = spaceship.getDockingBase();
+            SpaceBase to = bases.get(random.nextInt(bases.size()));
+            if (random.nextBoolean()) {
+                from.tryMoveShipTo(spaceship.getId(), to);
+            } else {
+                spaceship.tryRefuel(random.nextInt(200));
+            }
+        }
+
+        // WHEN
+        SpaceBase home = bases.get(3);
+        ShipQuery query = ShipQuery.all().fuelBetween(300.0, 1_500.0).homeBase(home).dockedElsewhere().within(0, 0, 150, 150);
+        List<SpaceShip> found = index.find(query);
+
+        // THEN
+        List<SpaceShip> expected = new ArrayList<>();
+        for (SpaceShip spaceship : ships) {
+            if (spaceship.getFuel() >= 300.0 && spaceship.getFuel() < 1_500.0 && spaceship.isHomeBase(home)
+                && spaceship.getDockingBase() != home && spaceship.getPosX() <= 150 && spaceship.getPosY() <= 150) {
+                expected.add(spaceship);
+            }
+        }
+        expected.sort(Comparator.comparingLong(SpaceShip::getId));
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, found);
+    }
+
+    private static List<SpaceShip> sortedById(List<SpaceShip> spaceships) {
+        spaceships.sort(Comparator.comparingLong(SpaceShip::getId));
+        return spaceships;
+    }
+}
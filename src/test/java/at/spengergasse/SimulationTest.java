@@ -0,0 +1,122 @@
+package at.spengergasse;
+
+import at.spengergasse.domain.FleetStore;
+import at.spengergasse.domain.OperationStatus;
+import at.spengergasse.domain.Simulation;
+import at.spengergasse.domain.SpaceBase;
+import at.spengergasse.domain.SpaceShip;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SimulationTest {
+
+    @Test
+    void testTick_shouldWork_shipArrivesAndDocks() {
+        //GIVEN
+        SpaceBase homeBase = new SpaceBase("Home", 0, 0);
+        SpaceBase start = new SpaceBase("Start", 0, 0);
+        SpaceBase destination = new SpaceBase("Destination", 30, 40);
+        SpaceShip spaceship = new SpaceShip(homeBase, 0, 0, 1000.0);
+        start.docking(spaceship);
+        Simulation simulation = new Simulation(20.0);
+
+        // WHEN
+        assertEquals(OperationStatus.OK, simulation.launch(spaceship, destination));
+
+        // THEN
+        assertNull(spaceship.getDockingBase());
+        assertFalse(start.arrangeShips().contains(spaceship));
+        assertEquals(OperationStatus.IN_FLIGHT, simulation.launch(spaceship, destination));
+
+        assertEquals(0, simulation.tick());
+        assertEquals(12, spaceship.getPosX());
+        assertEquals(16, spaceship.getPosY());
+        assertEquals(1000.0 - 20.0 * 3.58, spaceship.getFuel(), 1e-9);
+        assertEquals(0, simulation.tick());
+        assertEquals(1, simulation.tick());
+
+        assertEquals(0, simulation.inFlight());
+        assertFalse(simulation.isInFlight(spaceship));
+        assertEquals(destination, spaceship.getDockingBase());
+        assertEquals(30, spaceship.getPosX());
+        assertEquals(40, spaceship.getPosY());
+        assertEquals(1000.0 - 50.0 * 3.58, spaceship.getFuel(), 1e-9);
+    }
+
+    @Test
+    void testLaunch_shouldFail_lackOfFuel() {
+        //GIVEN
+        SpaceBase start = new SpaceBase("Start", 0, 0);
+        SpaceBase destination = new SpaceBase("Destination", 1000, 0);
+        SpaceShip spaceship = new SpaceShip(start, 0, 0, 100.0);
+        start.docking(spaceship);
+        Simulation simulation = new Simulation(20.0);
+
+        // WHEN
+        OperationStatus status = simulation.launch(spaceship, destination);
+
+        // THEN
+        assertEquals(OperationStatus.LACK_OF_FUEL, status);
+        assertEquals(start, spaceship.getDockingBase());
+        assertEquals(0, simulation.inFlight());
+        assertEquals(OperationStatus.NULL_ARGUMENT, simulation.launch(null, destination));
+    }
+
+    @Test
+    void testTick_shouldWork_sameOutcomeForAnyNumberOfThreads() {
+        //GIVEN
+        ForkJoinPool single = new ForkJoinPool(1);
+        ForkJoinPool several = new ForkJoinPool(4);
+        try {
+            List<SpaceShip> expected = fly(single);
+
+            // WHEN
+            List<SpaceShip> actual = fly(several);
+
+            // THEN
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i).getPosX(), actual.get(i).getPosX());
+                assertEquals(expected.get(i).getPosY(), actual.get(i).getPosY());
+                assertEquals(expected.get(i).getFuel(), actual.get(i).getFuel());
+                assertEquals(expected.get(i).getDockingBase().getName(), actual.get(i).getDockingBase().getName());
+            }
+        } finally {
+            single.shutdown();
+            several.shutdown();
+        }
+    }
+
+    // more flights than fit into one task, all of them ending up docked
+    private static List<SpaceShip> fly(ForkJoinPool pool) {
+        Random random = new Random(42);
+        FleetStore store = FleetStore.onHeap();
+        List<SpaceBase> bases = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            bases.add(new SpaceBase("Base " + i, random.nextInt(400), random.nextInt(400)));
+        }
+        Simulation simulation = new Simulation(7.5, pool);
+        List<SpaceShip> ships = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            SpaceBase start = bases.get(random.nextInt(bases.size()));
+            SpaceShip spaceship = new SpaceShip(store, bases.get(random.nextInt(bases.size())),
+                start.getPosX(), start.getPosY(), 2000.0);
+            start.docking(spaceship);
+            ships.add(spaceship);
+            assertEquals(OperationStatus.OK, simulation.launch(spaceship, bases.get(random.nextInt(bases.size()))));
+        }
+
+        int arrivals = 0;
+        while (simulation.inFlight() > 0) {
+            arrivals += simulation.tick();
+        }
+        assertEquals(ships.size(), arrivals);
+        return ships;
+    }
+}
@@ -0,0 +1,146 @@
+package at.spengergasse;
+
+import at.spengergasse.domain.FleetStore;
+import at.spengergasse.domain.Snapshot;
+import at.spengergasse.domain.SpaceBase;
+import at.spengergasse.domain.SpaceShip;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotTest {
+
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = Files.createTempFile("spacebase", ".snapshot");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    void testRead_shouldWork_restoresBasesShipsAndBerths() throws IOException {
+        //GIVEN
+        FleetStore store = FleetStore.onHeap();
+        SpaceBase homeBase = new SpaceBase("Gateway", 0, 0);
+        SpaceBase spacebase = new SpaceBase("MIR", 3, 4);
+        SpaceShip first = new SpaceShip(store, homeBase, 0, 0, 1000.0);
+        SpaceShip second = new SpaceShip(store, homeBase, 0, 0, 1000.0);
+        SpaceShip undocked = new SpaceShip(store, spacebase, 7, 8, 123.5);
+        spacebase.docking(second);
+        homeBase.docking(first);
+        homeBase.moveShipTo(first.getId(), spacebase);
+
+        // WHEN
+        Snapshot.write(file, store, List.of(homeBase, spacebase));
+        FleetStore restoredStore = FleetStore.onHeap();
+        List<SpaceBase> restored = Snapshot.read(file, restoredStore);
+
+        // THEN
+        assertEquals(2, restored.size());
+        SpaceBase restoredHome = restored.get(0);
+        SpaceBase restoredBase = restored.get(1);
+        assertEquals("Gateway", restoredHome.getName());
+        assertEquals(3, restoredBase.getPosX());
+        assertEquals(4, restoredBase.getPosY());
+        assertEquals(3, restoredStore.size());
+
+        List<SpaceShip> docked = restoredBase.arrangeShips();
+        assertEquals(List.of(first.getId(), second.getId()), docked.stream().map(SpaceShip::getId).toList());
+        SpaceShip restoredFirst = docked.get(0);
+        assertEquals(first.getFuel(), restoredFirst.getFuel());
+        assertEquals(3, restoredFirst.getPosX());
+        assertSame(restoredHome, restoredFirst.getHomeBase());
+        assertSame(restoredBase, restoredFirst.getDockingBase());
+        assertTrue(restoredHome.arrangeShips().isEmpty());
+
+        assertEquals(undocked.getId(), Long.valueOf(restoredStore.id(2)));
+        assertEquals(123.5, restoredStore.fuel(2));
+        assertEquals(FleetStore.NO_BASE, restoredStore.dockingBase(2));
+
+        assertTrue(restoredBase.buildShip() > undocked.getId());
+    }
+
+    @Test
+    void testRead_shouldWork_manyShips() throws IOException {
+        //GIVEN
+        FleetStore store = FleetStore.onHeap();
+        SpaceBase hub = new SpaceBase("Hub", 10, 10);
+        for (int i = 0; i < 100_000; i++) {
+            hub.docking(new SpaceShip(store, hub, 10, 10, i % 2000));
+        }
+
+        // WHEN
+        Snapshot.write(file, store, List.of(hub));
+
+        // THEN
+        try (FleetStore restoredStore = FleetStore.offHeap()) {
+            SpaceBase restoredHub = Snapshot.read(file, restoredStore).get(0);
+            assertEquals(100_000, restoredHub.arrangeShips().size());
+            assertIterableEquals(hub.arrangeShipsByFuel().stream().map(SpaceShip::getId).toList(),
+                restoredHub.arrangeShipsByFuel().stream().map(SpaceShip::getId).toList());
+        }
+    }
+
+    @Test
+    void testWrite_shouldWork_whileShipsAreBuilt() throws Exception {
+        //GIVEN
+        FleetStore store = FleetStore.onHeap();
+        SpaceBase homeBase = new SpaceBase("Gateway", 0, 0);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        Thread builder = Thread.ofPlatform().start(() -> {
+            for (int i = 0; i < 20_000 && writing.get(); i++) {
+                homeBase.docking(new SpaceShip(store, homeBase, 0, 0, 1000.0));
+            }
+        });
+
+        // WHEN
+        // THEN
+        try {
+            for (int i = 0; i < 20; i++) {
+                Snapshot.write(file, store, List.of(homeBase));
+                FleetStore restoredStore = FleetStore.onHeap();
+                List<SpaceBase> restored = Snapshot.read(file, restoredStore);
+                // the last ship may be allocated but not docked yet
+                assertTrue(restored.get(0).arrangeShips().size() >= restoredStore.size() - 1);
+            }
+        } finally {
+            writing.set(false);
+            builder.join();
+        }
+    }
+
+    @Test
+    void testRead_shouldNotWork_corruptFile_throwsApplicationException() throws IOException {
+        //GIVEN
+        FleetStore store = FleetStore.onHeap();
+        SpaceBase spacebase = new SpaceBase("Gateway", 0, 0);
+        spacebase.docking(new SpaceShip(store, spacebase, 0, 0, 1000.0));
+        Snapshot.write(file, store, List.of(spacebase));
+
+        // WHEN
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] { 42 }), channel.size() - 1);
+        }
+
+        // THEN
+        ApplicationException exception = assertThrowsExactly(ApplicationException.class,
+            () -> Snapshot.read(file, FleetStore.onHeap()));
+        assertEquals("snapshot: ship section is corrupt", exception.getMessage());
+    }
+}
@@ -0,0 +1,108 @@
+package at.spengergasse;
+
+import at.spengergasse.domain.SpaceBase;
+import at.spengergasse.domain.SpaceBaseIndex;
+import at.spengergasse.domain.SpaceShip;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpaceBaseIndexTest {
+
+    private static double distance(SpaceBase spacebase, int posX, int posY) {
+        return Math.hypot(spacebase.getPosX() - posX, spacebase.getPosY() - posY);
+    }
+
+    private static List<SpaceBase> randomBases(int count, int extent) {
+        Random random = new Random(42);
+        List<SpaceBase> spacebases = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            spacebases.add(new SpaceBase("Base " + i, random.nextInt(extent), random.nextInt(extent)));
+        }
+        return spacebases;
+    }
+
+    @Test
+    void testNearest_shouldWork_returnsSameBasesAsFullScan() {
+        //GIVEN
+        List<SpaceBase> spacebases = randomBases(2_000, 5_000);
+        SpaceBaseIndex index = new SpaceBaseIndex(spacebases);
+        int posX = 2_500;
+        int posY = 1_000;
+
+        // WHEN
+        List<SpaceBase> nearest = index.nearest(posX, posY, 10);
+
+        // THEN
+        List<SpaceBase> expected = new ArrayList<>(spacebases);
+        expected.sort(Comparator.comparingDouble(spacebase -> distance(spacebase, posX, posY)));
+        assertEquals(10, nearest.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(distance(expected.get(i), posX, posY), distance(nearest.get(i), posX, posY));
+        }
+    }
+
+    @Test
+    void testReachableBy_shouldWork_returnsBasesWithinFuelRange() {
+        //GIVEN
+        List<SpaceBase> spacebases = randomBases(2_000, 5_000);
+        SpaceBaseIndex index = new SpaceBaseIndex(spacebases);
+        SpaceShip spaceship = new SpaceShip(spacebases.get(0), 1_000, 1_000, 1_000.0);
+
+        // WHEN
+        List<SpaceBase> reachable = index.reachableBy(spaceship);
+
+        // THEN
+        HashSet<SpaceBase> expected = new HashSet<>();
+        for (SpaceBase spacebase : spacebases) {
+            if (distance(spacebase, 1_000, 1_000) * 3.58 <= 1_000.0) {
+                expected.add(spacebase);
+            }
+        }
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, new HashSet<>(reachable));
+    }
+
+    @Test
+    void testReachableBy_shouldWork_everyReachableBaseCanBeMovedTo() {
+        //GIVEN
+        List<SpaceBase> spacebases = randomBases(500, 2_000);
+        SpaceBaseIndex index = new SpaceBaseIndex(spacebases);
+        SpaceBase start = new SpaceBase("Start", 1_000, 1_000);
+        SpaceShip spaceship = new SpaceShip(start, 1_000, 1_000, 500.0);
+
+        // WHEN
+        // THEN
+        for (SpaceBase spacebase : index.reachableBy(spaceship)) {
+            SpaceShip probe = new SpaceShip(start, 1_000, 1_000, 500.0);
+            assertDoesNotThrow(() -> probe.moveTo(spacebase.getPosX(), spacebase.getPosY()));
+        }
+    }
+
+    @Test
+    void testRemove_shouldWork_removedBasesAreNoLongerFound() {
+        //GIVEN
+        List<SpaceBase> spacebases = randomBases(100, 100);
+        SpaceBaseIndex index = new SpaceBaseIndex(spacebases);
+
+        // WHEN
+        for (int i = 0; i < 90; i++) {
+            assertTrue(index.remove(spacebases.get(i)));
+        }
+        assertFalse(index.remove(spacebases.get(0)));
+
+        // THEN
+        assertEquals(10, index.size());
+        assertEquals(new HashSet<>(spacebases.subList(90, 100)), new HashSet<>(index.nearest(0, 0, 100)));
+        assertFalse(index.contains(spacebases.get(0)));
+        assertTrue(index.add(spacebases.get(0)));
+        assertFalse(index.add(spacebases.get(0)));
+        assertEquals(11, index.size());
+    }
+}
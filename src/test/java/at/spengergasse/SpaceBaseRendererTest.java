@@ -0,0 +1,71 @@
+package at.spengergasse;
+
+import at.spengergasse.domain.SpaceBase;
+import at.spengergasse.domain.SpaceBaseRenderer;
+import at.spengergasse.domain.SpaceBaseView;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpaceBaseRendererTest {
+
+    @Test
+    void testDump_shouldWork_sameAsToString() throws IOException {
+        //GIVEN
+        SpaceBase spacebase = new SpaceBase("ISS", 10, 20);
+        spacebase.buildShips(2_000);
+        StringWriter out = new StringWriter();
+
+        // WHEN
+        SpaceBaseRenderer.dump(spacebase, out);
+
+        // THEN
+        assertEquals(spacebase.toString(), out.toString());
+    }
+
+    @Test
+    void testRenderAfter_shouldWork_pagesAddUpToTheWholeBase() throws IOException {
+        //GIVEN
+        SpaceBase spacebase = new SpaceBase("ISS", 10, 20);
+        spacebase.buildShips(1_000);
+        SpaceBaseView view = spacebase.snapshot();
+        StringBuilder byCursor = new StringBuilder();
+        StringBuilder byPage = new StringBuilder();
+
+        // WHEN
+        long cursor = SpaceBaseRenderer.FIRST_PAGE;
+        int pages = 0;
+        while (cursor != SpaceBaseRenderer.END) {
+            cursor = SpaceBaseRenderer.renderAfter(view, byCursor, cursor, 64);
+            pages++;
+        }
+        for (int page = 0; page < pages; page++) {
+            SpaceBaseRenderer.renderPage(view, byPage, page, 64);
+        }
+        // changes after the view was taken do not show
+        spacebase.buildShips(10);
+
+        // THEN
+        assertEquals(16, pages);
+        assertEquals(view.toString(), byCursor.toString());
+        assertEquals(view.toString(), byPage.toString());
+        assertEquals(SpaceBaseRenderer.END, SpaceBaseRenderer.renderPage(view, new StringBuilder(), 16, 64));
+    }
+
+    @Test
+    void testRenderAfter_shouldWork_emptyBase() throws IOException {
+        //GIVEN
+        SpaceBase spacebase = new SpaceBase("ISS", 10, 20);
+        StringBuilder out = new StringBuilder();
+
+        // WHEN
+        long cursor = SpaceBaseRenderer.renderAfter(spacebase.snapshot(), out, SpaceBaseRenderer.FIRST_PAGE, 10);
+
+        // THEN
+        assertEquals(SpaceBaseRenderer.END, cursor);
+        assertEquals("SpaceBase 'ISS', position 10/20, no ships", out.toString());
+    }
+}
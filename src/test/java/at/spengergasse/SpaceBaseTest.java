@@ -1,10 +1,22 @@
 package at.spengergasse;
 
+import at.spengergasse.domain.BatchResult;
+import at.spengergasse.domain.FleetStore;
+import at.spengergasse.domain.OperationStatus;
 import at.spengergasse.domain.SpaceBase;
+import at.spengergasse.domain.SpaceBaseView;
 import at.spengergasse.domain.SpaceShip;
 import org.junit.jupiter.api.Test;
 
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -296,4 +308,286 @@ class SpaceBaseTest {
             fail();
         }
     }
+
+    @Test
+    void testMoveShipTo_shouldWork_concurrentTransfersKeepEveryShipInExactlyOneBase() throws InterruptedException {
+        //GIVEN
+        SpaceBase[] spacebases = new SpaceBase[4];
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < spacebases.length; i++) {
+            spacebases[i] = new SpaceBase("Base " + i, 10, 10);
+            for (int s = 0; s < 100; s++) {
+                ids.add(spacebases[i].buildShip());
+            }
+        }
+
+        // WHEN
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < 20_000; i++) {
+                    SpaceBase from = spacebases[random.nextInt(spacebases.length)];
+                    SpaceBase to = spacebases[random.nextInt(spacebases.length)];
+                    from.moveShipTo(ids.get(random.nextInt(ids.size())), to);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // THEN
+        Set<Long> docked = new HashSet<>();
+        for (SpaceBase spacebase : spacebases) {
+            for (SpaceShip spaceship : spacebase.arrangeShips()) {
+                assertTrue(docked.add(spaceship.getId()));
+                assertEquals(spacebase, spaceship.getDockingBase());
+            }
+        }
+        assertEquals(new HashSet<>(ids), docked);
+    }
+
+    @Test
+    void testShipsByFuel_shouldWork_orderFollowsRefuelAndMoves() {
+        //GIVEN
+        SpaceBase spacebase = new SpaceBase("MIR", 0, 0);
+        SpaceBase spacebaseHome = new SpaceBase();
+        SpaceShip spaceship1 = new SpaceShip(spacebaseHome, 0, 0, 1000.0);
+        SpaceShip spaceship2 = new SpaceShip(spacebaseHome, 0, 0, 1500.0);
+        SpaceShip spaceship3 = new SpaceShip(spacebaseHome, 0, 0, 500.0);
+        spacebase.docking(spaceship1);
+        spacebase.docking(spaceship2);
+        spacebase.docking(spaceship3);
+        assertIterableEquals(List.of(spaceship3, spaceship1, spaceship2), spacebase.shipsByFuel());
+
+        // WHEN
+        spaceship3.refuel(1400.0);
+        spaceship2.moveTo(200, 0);
+
+        // THEN
+        assertIterableEquals(List.of(spaceship2, spaceship1, spaceship3), spacebase.shipsByFuel());
+        assertIterableEquals(List.of(spaceship2, spaceship1, spaceship3), spacebase.arrangeShipsByFuel());
+        assertIterableEquals(List.of(spaceship1, spaceship2, spaceship3), spacebase.shipsById());
+        assertThrows(UnsupportedOperationException.class, () -> spacebase.shipsById().clear());
+    }
+
+    @Test
+    void testDockAll_shouldWork_failedItemsDoNotStopTheBatch() {
+        //GIVEN
+        SpaceBase spacebase = new SpaceBase("MIR", 0, 0);
+        SpaceShip spaceship1 = new SpaceShip(spacebase, 0, 0, 1000.0);
+        SpaceShip spaceship2 = new SpaceShip(spacebase, 0, 0, 1000.0);
+        spacebase.docking(spaceship2);
+
+        // WHEN
+        BatchResult result = spacebase.dockAll(Arrays.asList(spaceship1, null, spaceship2));
+
+        // THEN
+        assertEquals(3, result.size());
+        assertTrue(result.succeeded(0));
+        assertFalse(result.succeeded(1));
+        assertEquals(BatchResult.NO_ID, result.id(1));
+        assertFalse(result.succeeded(2));
+        assertEquals((long) spaceship2.getId(), result.id(2));
+        assertEquals(1, result.successCount());
+        assertEquals(2, spacebase.arrangeShips().size());
+        assertEquals(spacebase, spaceship1.getDockingBase());
+    }
+
+    @Test
+    void testMoveShipsTo_shouldWork_movesReachableShipsOnly() {
+        //GIVEN
+        SpaceBase spacebase = new SpaceBase("ISS", 0, 0);
+        SpaceBase spacebase1 = new SpaceBase("MIR", 300, 0);
+        BatchResult built = spacebase.buildShips(3);
+        assertArrayEquals(built.succeededIds(), spacebase.arrangeShips().stream().mapToLong(SpaceShip::getId).toArray());
+        SpaceShip thirsty = new SpaceShip(new SpaceBase(), 0, 0, 10.0);
+        spacebase.docking(thirsty);
+        List<Long> ids = new ArrayList<>();
+        for (long id : built.succeededIds()) {
+            ids.add(id);
+        }
+        ids.add(thirsty.getId());
+        ids.add(-100L);
+
+        // WHEN
+        BatchResult result = spacebase.moveShipsTo(ids, spacebase1);
+
+        // THEN
+        assertEquals(3, result.successCount());
+        assertEquals(OperationStatus.LACK_OF_FUEL, result.status(3));
+        assertEquals(OperationStatus.UNKNOWN_SHIP, result.status(4));
+        assertEquals(1, spacebase.arrangeShips().size());
+        assertEquals(3, spacebase1.arrangeShips().size());
+        assertEquals(spacebase, thirsty.getDockingBase());
+    }
+
+    @Test
+    void testTryMoveShipTo_shouldNotWork_returnsReasonInsteadOfNull() {
+        //GIVEN
+        SpaceBase spacebase = new SpaceBase("ISS", 0, 0);
+        SpaceBase spacebase1 = new SpaceBase("MIR", 0, 0);
+        Long id = spacebase.buildShip();
+
+        //WHEN
+        //THEN
+        assertEquals(OperationStatus.NULL_ARGUMENT, spacebase.tryMoveShipTo(id, null));
+        assertEquals(OperationStatus.UNKNOWN_SHIP, spacebase1.tryMoveShipTo(id, spacebase));
+        assertEquals(OperationStatus.OK, spacebase.tryMoveShipTo(id, spacebase1));
+        assertEquals(OperationStatus.ALREADY_DOCKED, spacebase1.tryDocking(spacebase1.arrangeShips().getFirst()));
+        assertEquals(OperationStatus.NULL_ARGUMENT, spacebase1.tryDocking(null));
+    }
+
+    @Test
+    void testSnapshot_shouldWork_viewDoesNotChangeWithTheBase() {
+        //GIVEN
+        SpaceBase spacebase = new SpaceBase("ISS", 0, 0);
+        SpaceBase spacebase1 = new SpaceBase("MIR", 0, 0);
+        BatchResult built = spacebase.buildShips(3);
+        SpaceBaseView before = spacebase.snapshot();
+
+        // WHEN
+        spacebase.moveShipTo(built.id(0), spacebase1);
+        spacebase.setName("ISS 2");
+
+        // THEN
+        SpaceBaseView after = spacebase.snapshot();
+        assertEquals(3, before.shipCount());
+        assertEquals("ISS", before.name());
+        assertTrue(before.isDocked(built.id(0)));
+        assertEquals(2, after.shipCount());
+        assertEquals("ISS 2", after.name());
+        assertFalse(after.isDocked(built.id(0)));
+        assertTrue(after.version() > before.version());
+        assertEquals(spacebase.arrangeShips(), after.arrangeShips());
+    }
+
+    @Test
+    void testSnapshot_shouldWork_readersNeverSeeAPartialTransfer() throws InterruptedException {
+        //GIVEN
+        SpaceBase spacebase = new SpaceBase("ISS", 0, 0);
+        SpaceBase spacebase1 = new SpaceBase("MIR", 0, 0);
+        long id = spacebase.buildShip();
+        Thread mover = new Thread(() -> {
+            for (int i = 0; i < 20_000; i++) {
+                spacebase.moveShipTo(id, spacebase1);
+                spacebase1.moveShipTo(id, spacebase);
+            }
+        });
+
+        // WHEN
+        mover.start();
+        // THEN
+        while (mover.isAlive()) {
+            assertTrue(spacebase.snapshot().shipCount() <= 1);
+            assertTrue(spacebase1.arrangeShips().size() <= 1);
+        }
+        mover.join();
+        assertEquals(1, spacebase.snapshot().shipCount() + spacebase1.snapshot().shipCount());
+    }
+
+    @Test
+    void testRegistry_shouldWork_unusedBasesAreCollected() throws InterruptedException {
+        //GIVEN
+        WeakReference<SpaceBase> unused = new WeakReference<>(new SpaceBase("Unused", 0, 0));
+
+        // WHEN
+        for (int i = 0; i < 50 && unused.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        // THEN
+        assertNull(unused.get());
+        SpaceBase spacebase = new SpaceBase("ISS", 0, 0);
+        assertSame(spacebase, spacebase.findShip(spacebase.buildShip()).orElseThrow().getHomeBase());
+    }
+
+    @Test
+    void testRegistry_shouldWork_basesOfShipsAreKept() throws InterruptedException {
+        //GIVEN
+        FleetStore store = FleetStore.onHeap();
+        SpaceShip spaceship = new SpaceShip(store, new SpaceBase("Home", 0, 0), 0, 0, 1_000.0);
+        new SpaceBase("Docking", 0, 0).docking(spaceship);
+        WeakReference<SpaceBase> unused = new WeakReference<>(new SpaceBase("Unused", 0, 0));
+
+        // WHEN
+        for (int i = 0; i < 50 && unused.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        // THEN
+        assertNull(unused.get());
+        assertEquals("Home", spaceship.getHomeBase().getName());
+        assertEquals("Docking", spaceship.getDockingBase().getName());
+    }
+
+    @Test
+    void testRegistry_shouldWork_basesOfCollectedShipsAreCollected() throws InterruptedException {
+        //GIVEN
+        FleetStore store = FleetStore.onHeap();
+        WeakReference<SpaceBase> home = new WeakReference<>(
+            new SpaceShip(store, new SpaceBase("Home", 0, 0), 0, 0, 1_000.0).getHomeBase());
+
+        // WHEN
+        for (int i = 0; i < 50 && home.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        // THEN
+        // the store still has the slot of the ship, but does not keep its base
+        assertEquals(1, store.size());
+        assertNull(home.get());
+    }
+
+    @Test
+    void testConstructor_shouldNotWork_posYNegative_throwsApplicationException() {
+        //GIVEN
+        // WHEN
+        // THEN
+        ApplicationException e = assertThrows(ApplicationException.class, () -> new SpaceBase("Mir", 0, -1));
+        assertEquals("setPosY: posY-value is not valid (-1)", e.getMessage());
+        assertEquals(0, new SpaceBase("Mir", 0, 0).getPosY());
+    }
+
+    @Test
+    void testShipsById_shouldWork_viewsStayAsTheyWereTaken() {
+        //GIVEN
+        SpaceBase spacebase = new SpaceBase("MIR", 0, 0);
+        SpaceShip spaceship1 = new SpaceShip(spacebase, 0, 0, 1000.0);
+        SpaceShip spaceship2 = new SpaceShip(spacebase, 0, 0, 500.0);
+        spacebase.docking(spaceship2);
+        Collection<SpaceShip> byId = spacebase.shipsById();
+        List<SpaceShip> byFuel = spacebase.shipsByFuel();
+
+        // WHEN
+        spacebase.docking(spaceship1);
+
+        // THEN
+        assertIterableEquals(List.of(spaceship2), byId);
+        assertIterableEquals(List.of(spaceship2), byFuel);
+        assertIterableEquals(List.of(spaceship1, spaceship2), spacebase.shipsById());
+        assertThrows(UnsupportedOperationException.class, () -> spacebase.shipsByFuel().clear());
+    }
+
+    @Test
+    void testToString_shouldWork_listsShipsByIdLikeArrangeShips() {
+        //GIVEN
+        SpaceBase spacebase = new SpaceBase("MIR", 0, 0);
+        SpaceBase spacebaseHome = new SpaceBase();
+        SpaceShip spaceship1 = new SpaceShip(spacebaseHome, 0, 0, 1000.0);
+        SpaceShip spaceship2 = new SpaceShip(spacebaseHome, 0, 0, 500.0);
+
+        // WHEN
+        spacebase.docking(spaceship2);
+        spacebase.docking(spaceship1);
+
+        // THEN
+        assertEquals("SpaceBase 'MIR', position 0/0, 2 ships in docks\n" + spaceship1 + "\n" + spaceship2 + "\n",
+            spacebase.toString());
+        assertIterableEquals(List.of(spaceship1, spaceship2), spacebase.arrangeShips());
+    }
 }
\ No newline at end of file
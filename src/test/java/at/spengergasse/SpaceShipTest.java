@@ -2,6 +2,7 @@ package at.spengergasse;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import at.spengergasse.domain.OperationStatus;
 import at.spengergasse.domain.SpaceBase;
 import at.spengergasse.domain.SpaceShip;
 import org.junit.jupiter.api.Test;
@@ -642,4 +643,55 @@ class SpaceShipTest {
             fail();
         }
     }
+
+    @Test
+    void testTryMoveTo_shouldNotWork_lessFuel_returnsStatusAndKeepsState() {
+        //GIVEN
+        SpaceShip spaceship = new SpaceShip();
+        assertEquals(1000.0, spaceship.getFuel());
+
+        //WHEN
+        OperationStatus status = spaceship.tryMoveTo(150, 250);
+
+        //THEN
+        assertEquals(OperationStatus.LACK_OF_FUEL, status);
+        assertEquals(OperationStatus.INVALID_POSITION, spaceship.tryMoveTo(-1, 0));
+        assertEquals(0, spaceship.getPosX());
+        assertEquals(1000.0, spaceship.getFuel());
+        assertEquals(OperationStatus.OK, spaceship.tryMoveTo(1, 0));
+        assertEquals(1, spaceship.getPosX());
+    }
+
+    @Test
+    void testTryRefuel_shouldNotWork_invalidAmounts_returnsStatus() {
+        //GIVEN
+        SpaceShip spaceship = new SpaceShip();
+
+        //WHEN
+        //THEN
+        assertEquals(OperationStatus.FUEL_AMOUNT_TOO_HIGH, spaceship.tryRefuel(1001.0));
+        assertEquals(OperationStatus.FUEL_AMOUNT_NEGATIVE, spaceship.tryRefuel(-1.0));
+        assertEquals(1000.0, spaceship.getFuel());
+        assertEquals(OperationStatus.OK, spaceship.tryRefuel(1000.0));
+        assertEquals(2000.0, spaceship.getFuel());
+    }
+
+    @Test
+    void testApplicationException_shouldWork_stackTraceCanBeSwitchedOff() {
+        boolean enabled = ApplicationException.isStackTraceEnabled();
+        try {
+            //GIVEN
+            ApplicationException.setStackTraceEnabled(false);
+            SpaceShip spaceship = new SpaceShip();
+
+            //WHEN
+            ApplicationException e = assertThrowsExactly(ApplicationException.class, () -> spaceship.moveTo(150, 250));
+
+            //THEN
+            assertTrue(e.getMessage().startsWith("moveTo: lack of fuel"));
+            assertEquals(0, e.getStackTrace().length);
+        } finally {
+            ApplicationException.setStackTraceEnabled(enabled);
+        }
+    }
 }
\ No newline at end of file